@@ -16,6 +16,12 @@ CLIP_MODEL_NAME = "ViT-B/32"
 FAISS_INDEX_PATH = os.path.join(os.path.dirname(__file__), "faiss_index")
 TOP_K_RESULTS = 10
 
+# Incremental index updates from the backend's product_outbox table
+OUTBOX_POLL_INTERVAL_SECONDS = float(os.getenv("OUTBOX_POLL_INTERVAL_SECONDS", "5"))
+OUTBOX_BATCH_SIZE = 100
+# A change whose image keeps failing to load is retried on later polls, then given up on
+OUTBOX_MAX_ATTEMPTS = int(os.getenv("OUTBOX_MAX_ATTEMPTS", "5"))
+
 # Server
 HOST = "0.0.0.0"
 PORT = 8001
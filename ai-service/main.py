@@ -9,13 +9,18 @@ os.environ["KMP_DUPLICATE_LIB_OK"] = "TRUE"
 os.environ["OMP_NUM_THREADS"] = "1"
 
 import logging
+import threading
+import time
 import numpy as np
 from contextlib import asynccontextmanager
 from fastapi import FastAPI
 from fastapi.middleware.cors import CORSMiddleware
 from sqlalchemy import create_engine, text
 
-from config import DATABASE_URL, CLIP_MODEL_NAME, FAISS_INDEX_PATH, ALLOWED_ORIGINS, HOST, PORT
+from config import (
+    DATABASE_URL, CLIP_MODEL_NAME, FAISS_INDEX_PATH, ALLOWED_ORIGINS, HOST, PORT,
+    OUTBOX_POLL_INTERVAL_SECONDS, OUTBOX_BATCH_SIZE, OUTBOX_MAX_ATTEMPTS,
+)
 from models.clip_model import CLIPModelService
 from models.faiss_index import FAISSIndex
 from utils.image_utils import load_image_from_url
@@ -50,6 +55,31 @@ def get_products_from_db() -> list[dict]:
     return products
 
 
+def save_embeddings_to_db(product_ids: list[int], embeddings: np.ndarray):
+    """
+    Upsert product embeddings into MySQL (little-endian float32) so the Spring
+    backend can answer similarity queries in-process.
+    """
+    rows = [
+        {"product_id": int(pid), "vector": emb.astype("<f4").tobytes()}
+        for pid, emb in zip(product_ids, embeddings)
+    ]
+    try:
+        with engine.begin() as conn:
+            conn.execute(
+                text(
+                    "INSERT INTO product_embeddings (product_id, vector, updated_at) "
+                    "VALUES (:product_id, :vector, NOW(6)) "
+                    "ON DUPLICATE KEY UPDATE vector = VALUES(vector), updated_at = NOW(6)"
+                ),
+                rows,
+            )
+        logger.info(f"Stored {len(rows)} embeddings in product_embeddings.")
+    except Exception as e:
+        # The table is created by the backend; the FAISS index still works without it
+        logger.warning(f"Could not store embeddings in database: {e}")
+
+
 def rebuild_faiss_index():
     """Download product images, encode with CLIP, and rebuild the FAISS index."""
     global faiss_index
@@ -78,11 +108,102 @@ def rebuild_faiss_index():
         embeddings_array = np.array(embeddings, dtype=np.float32)
         faiss_index.build_index(embeddings_array, product_ids)
         faiss_index.save(FAISS_INDEX_PATH)
+        save_embeddings_to_db(product_ids, embeddings_array)
         logger.info(f"FAISS index rebuilt with {len(product_ids)} products.")
     else:
         logger.error("No embeddings generated. Index not built.")
 
 
+def apply_outbox_changes() -> int:
+    """
+    Apply pending product changes from the backend's product_outbox table to
+    the FAISS index and product_embeddings, re-encoding only the changed
+    products. A change whose image fails to load stays pending and is retried on
+    later polls, up to OUTBOX_MAX_ATTEMPTS. Returns the number of outbox rows
+    consumed.
+    """
+    with engine.connect() as conn:
+        rows = conn.execute(
+            text(
+                "SELECT id, product_id, event_type, image, attempts FROM product_outbox "
+                "WHERE processed_at IS NULL ORDER BY id LIMIT :limit"
+            ),
+            {"limit": OUTBOX_BATCH_SIZE},
+        ).fetchall()
+    if not rows:
+        return 0
+
+    # Several edits to one product collapse into its latest change
+    latest = {}
+    for row in rows:
+        latest[row[1]] = {"event_type": row[2], "image": row[3]}
+
+    saved_ids, saved_embeddings, removed_ids, failed_ids = [], [], [], set()
+    for product_id, change in latest.items():
+        if change["event_type"] == "DELETED":
+            removed_ids.append(product_id)
+            continue
+        image = load_image_from_url(change["image"]) if change["image"] else None
+        if image is None:
+            logger.warning(f"Outbox change for product {product_id} failed to load its image; will retry.")
+            failed_ids.add(product_id)
+            continue
+        saved_ids.append(product_id)
+        saved_embeddings.append(clip_service.encode_image(image))
+
+    if removed_ids:
+        faiss_index.remove(removed_ids)
+        with engine.begin() as conn:
+            conn.execute(
+                text("DELETE FROM product_embeddings WHERE product_id = :product_id"),
+                [{"product_id": int(pid)} for pid in removed_ids],
+            )
+    if saved_ids:
+        embeddings_array = np.array(saved_embeddings, dtype=np.float32)
+        faiss_index.upsert(saved_ids, embeddings_array)
+        save_embeddings_to_db(saved_ids, embeddings_array)
+    faiss_index.save(FAISS_INDEX_PATH)
+
+    # Rows of a failed product stay pending, unless this was their last attempt
+    done = [row for row in rows if row[1] not in failed_ids]
+    retry = [row for row in rows if row[1] in failed_ids and row[4] + 1 < OUTBOX_MAX_ATTEMPTS]
+    given_up = [row for row in rows if row[1] in failed_ids and row[4] + 1 >= OUTBOX_MAX_ATTEMPTS]
+    for row in given_up:
+        logger.error(
+            f"Giving up on outbox row {row[0]} for product {row[1]} after {OUTBOX_MAX_ATTEMPTS} attempts."
+        )
+    with engine.begin() as conn:
+        if done or given_up:
+            conn.execute(
+                text("UPDATE product_outbox SET processed_at = NOW(6), attempts = attempts + :failed WHERE id = :id"),
+                [{"id": row[0], "failed": 0} for row in done]
+                + [{"id": row[0], "failed": 1} for row in given_up],
+            )
+        if retry:
+            conn.execute(
+                text("UPDATE product_outbox SET attempts = attempts + 1 WHERE id = :id"),
+                [{"id": row[0]} for row in retry],
+            )
+    logger.info(
+        f"Applied {len(rows)} outbox rows: {len(saved_ids)} re-encoded, {len(removed_ids)} removed, "
+        f"{len(retry)} left for retry."
+    )
+    # Rows left for retry don't count, so a batch of failures waits a poll interval
+    return len(rows) - len(retry)
+
+
+def _consume_outbox_forever():
+    while True:
+        try:
+            # Drain a backlog without waiting between full batches
+            if apply_outbox_changes() < OUTBOX_BATCH_SIZE:
+                time.sleep(OUTBOX_POLL_INTERVAL_SECONDS)
+        except Exception as e:
+            # The table is created by the backend; keep polling until it exists
+            logger.warning(f"Outbox consumer error: {e}")
+            time.sleep(OUTBOX_POLL_INTERVAL_SECONDS)
+
+
 # Try to load existing FAISS index from disk
 if faiss_index.load(FAISS_INDEX_PATH):
     logger.info("Loaded existing FAISS index from disk.")
@@ -94,6 +215,8 @@ else:
         logger.error(f"Failed to build initial index: {e}")
         logger.info("You can trigger a rebuild later via POST /api/index/rebuild")
 
+threading.Thread(target=_consume_outbox_forever, name="outbox-consumer", daemon=True).start()
+
 logger.info("=" * 60)
 logger.info("Visual AI Search Service is ready!")
 logger.info("=" * 60)
@@ -7,6 +7,7 @@ import numpy as np
 import os
 import pickle
 import logging
+import threading
 from typing import Optional
 
 logger = logging.getLogger(__name__)
@@ -19,6 +20,8 @@ class FAISSIndex:
         self.dimension = dimension
         self.index: Optional[faiss.IndexFlatIP] = None
         self.product_ids: list[int] = []
+        # Guards index/product_ids, which incremental updates change while searches run
+        self._lock = threading.RLock()
 
     def build_index(self, embeddings: np.ndarray, product_ids: list[int]):
         """
@@ -30,12 +33,15 @@ class FAISSIndex:
             embeddings: numpy array of shape (N, 512)
             product_ids: list of product IDs corresponding to each embedding
         """
-        self.product_ids = product_ids
-        self.index = faiss.IndexFlatIP(self.dimension)
+        index = faiss.IndexFlatIP(self.dimension)
         
         # Ensure embeddings are float32
         embeddings = embeddings.astype(np.float32)
-        self.index.add(embeddings)
+        index.add(embeddings)
+
+        with self._lock:
+            self.product_ids = list(product_ids)
+            self.index = index
         
         logger.info(f"FAISS index built with {self.index.ntotal} vectors.")
 
@@ -50,32 +56,66 @@ class FAISSIndex:
         Returns:
             List of dicts with 'productId' and 'similarity' keys
         """
-        if self.index is None or self.index.ntotal == 0:
-            logger.warning("FAISS index is empty. Returning empty results.")
-            return []
+        with self._lock:
+            if self.index is None or self.index.ntotal == 0:
+                logger.warning("FAISS index is empty. Returning empty results.")
+                return []
 
-        query_vector = query_vector.astype(np.float32).reshape(1, -1)
-        k = min(k, self.index.ntotal)
-        
-        scores, indices = self.index.search(query_vector, k)
-        
-        results = []
-        for score, idx in zip(scores[0], indices[0]):
-            if idx < len(self.product_ids):
-                results.append({
-                    "productId": int(self.product_ids[idx]),
-                    "similarity": round(float(score) * 100, 2)  # Convert to percentage
-                })
-        
-        return results
+            query_vector = query_vector.astype(np.float32).reshape(1, -1)
+            k = min(k, self.index.ntotal)
+            
+            scores, indices = self.index.search(query_vector, k)
+            
+            results = []
+            for score, idx in zip(scores[0], indices[0]):
+                if 0 <= idx < len(self.product_ids):
+                    results.append({
+                        "productId": int(self.product_ids[idx]),
+                        "similarity": round(float(score) * 100, 2)  # Convert to percentage
+                    })
+            
+            return results
+
+    def upsert(self, product_ids: list[int], embeddings: np.ndarray):
+        """
+        Add or replace the embeddings of a few products without a rebuild.
+
+        Args:
+            product_ids: product IDs to add or replace
+            embeddings: numpy array of shape (len(product_ids), 512)
+        """
+        with self._lock:
+            self._remove_locked(product_ids)
+            if self.index is None:
+                self.index = faiss.IndexFlatIP(self.dimension)
+            self.index.add(embeddings.astype(np.float32).reshape(-1, self.dimension))
+            self.product_ids.extend(int(pid) for pid in product_ids)
+
+    def remove(self, product_ids: list[int]):
+        """Drop the embeddings of the given products, if present."""
+        with self._lock:
+            self._remove_locked(product_ids)
+
+    def _remove_locked(self, product_ids: list[int]):
+        if self.index is None:
+            return
+        targets = set(int(pid) for pid in product_ids)
+        positions = [i for i, pid in enumerate(self.product_ids) if pid in targets]
+        if not positions:
+            return
+        # IndexFlat compacts on removal, shifting later rows down like the id list
+        self.index.remove_ids(np.array(positions, dtype=np.int64))
+        for position in reversed(positions):
+            del self.product_ids[position]
 
     def save(self, path: str):
         """Save index and product IDs to disk."""
         os.makedirs(path, exist_ok=True)
-        if self.index is not None:
-            faiss.write_index(self.index, os.path.join(path, "index.faiss"))
-        with open(os.path.join(path, "product_ids.pkl"), "wb") as f:
-            pickle.dump(self.product_ids, f)
+        with self._lock:
+            if self.index is not None:
+                faiss.write_index(self.index, os.path.join(path, "index.faiss"))
+            with open(os.path.join(path, "product_ids.pkl"), "wb") as f:
+                pickle.dump(self.product_ids, f)
         logger.info(f"FAISS index saved to {path}")
 
     def load(self, path: str) -> bool:
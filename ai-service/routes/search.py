@@ -1,6 +1,8 @@
 """
 Visual Search API Route
 Accepts image uploads and returns visually similar products using CLIP + FAISS.
+Also exposes a batch-encode endpoint so the backend's visual search gateway can
+share one CLIP forward pass across concurrent uploads.
 """
 import asyncio
 from concurrent.futures import ThreadPoolExecutor
@@ -29,6 +31,16 @@ def _run_inference(pil_image):
     return results
 
 
+def _run_batch_encoding(pil_images):
+    """Encode several images in a single CLIP forward pass."""
+    from main import clip_service
+
+    if clip_service is None:
+        raise RuntimeError("AI service is still initializing.")
+
+    return clip_service.encode_images_batch(pil_images)
+
+
 @router.post("/visual")
 async def visual_search(image: UploadFile = File(...)):
     """
@@ -82,3 +94,50 @@ async def visual_search(image: UploadFile = File(...)):
             status_code=500,
             detail=f"AI processing error: {str(e)}"
         )
+
+
+@router.post("/encode-batch")
+async def encode_batch(images: list[UploadFile] = File(...)):
+    """
+    Encode a micro-batch of uploaded images with one CLIP forward pass.
+
+    - Accepts: multipart/form-data with one or more 'images' fields
+    - Returns: {"embeddings": [...], "errors": [...]} aligned with the uploads;
+      an unreadable image gets a null embedding and an error message
+    """
+    embeddings = [None] * len(images)
+    errors = [None] * len(images)
+    valid_positions = []
+    pil_images = []
+
+    for position, image in enumerate(images):
+        image_bytes = await image.read()
+        if len(image_bytes) == 0:
+            errors[position] = "Empty image file."
+        elif len(image_bytes) > 10 * 1024 * 1024:  # 10MB limit
+            errors[position] = "Image too large. Maximum size is 10MB."
+        else:
+            pil_image = load_image_from_bytes(image_bytes)
+            if pil_image is None:
+                errors[position] = "Could not process the uploaded image."
+            else:
+                valid_positions.append(position)
+                pil_images.append(pil_image)
+
+    if pil_images:
+        try:
+            loop = asyncio.get_event_loop()
+            vectors = await loop.run_in_executor(_executor, _run_batch_encoding, pil_images)
+        except RuntimeError as e:
+            raise HTTPException(status_code=503, detail=str(e))
+        except Exception as e:
+            logger.error(f"Batch encoding error: {traceback.format_exc()}")
+            raise HTTPException(
+                status_code=500,
+                detail=f"AI processing error: {str(e)}"
+            )
+        for position, vector in zip(valid_positions, vectors):
+            embeddings[position] = vector.astype("float32").tolist()
+
+    logger.info(f"Encoded batch of {len(pil_images)}/{len(images)} images")
+    return {"embeddings": embeddings, "errors": errors}
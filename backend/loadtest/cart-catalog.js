@@ -0,0 +1,67 @@
+// k6 load test: 2,000 concurrent clients browsing the catalog and editing carts.
+// Run it once against the default platform-thread server and once against
+//   ./mvnw -Pjava21 spring-boot:run -Dspring-boot.run.profiles=virtual-threads
+// and compare http_reqs (throughput) and http_req_duration p95/p99.
+//
+//   k6 run -e BASE_URL=http://localhost:8080 loadtest/cart-catalog.js
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+// Clients share a pool of accounts; registering 2,000 would mostly measure BCrypt
+const ACCOUNTS = parseInt(__ENV.ACCOUNTS || '200', 10);
+
+export const options = {
+  scenarios: {
+    shoppers: {
+      executor: 'ramping-vus',
+      startVUs: 0,
+      stages: [
+        { duration: '30s', target: 2000 },
+        { duration: '2m', target: 2000 },
+        { duration: '15s', target: 0 },
+      ],
+      gracefulRampDown: '10s',
+    },
+  },
+  setupTimeout: '5m',
+};
+
+export function setup() {
+  const tokens = [];
+  for (let i = 0; i < ACCOUNTS; i++) {
+    const credentials = { email: `loadtest-${i}@example.com`, password: 'loadtest-password' };
+    let res = http.post(`${BASE_URL}/api/auth/login`, JSON.stringify(credentials), jsonHeaders());
+    if (res.status !== 200) {
+      res = http.post(`${BASE_URL}/api/auth/register`,
+        JSON.stringify({ name: `Load Test ${i}`, ...credentials }), jsonHeaders());
+    }
+    tokens.push(res.json('token'));
+  }
+  const products = http.get(`${BASE_URL}/api/products/page?limit=100`).json('items').map((p) => p.id);
+  return { tokens, products };
+}
+
+export default function (data) {
+  const token = data.tokens[__VU % data.tokens.length];
+  const productId = data.products[Math.floor(Math.random() * data.products.length)];
+  const auth = jsonHeaders(token);
+
+  check(http.get(`${BASE_URL}/api/products/page?limit=20`), { 'catalog page 200': (r) => r.status === 200 });
+  check(http.get(`${BASE_URL}/api/products/${productId}`), { 'product 200': (r) => r.status === 200 || r.status === 304 });
+  check(http.post(`${BASE_URL}/api/cart`, JSON.stringify({ productId, quantity: 1 }), auth),
+    { 'add to cart 200': (r) => r.status === 200 });
+  check(http.get(`${BASE_URL}/api/cart`, auth), { 'cart 200': (r) => r.status === 200 });
+  check(http.put(`${BASE_URL}/api/cart/${productId}`, JSON.stringify({ quantity: 0 }), auth),
+    { 'remove from cart 200': (r) => r.status === 200 });
+
+  sleep(Math.random());
+}
+
+function jsonHeaders(token) {
+  const headers = { 'Content-Type': 'application/json' };
+  if (token) {
+    headers.Authorization = `Bearer ${token}`;
+  }
+  return { headers };
+}
@@ -0,0 +1,24 @@
+package com.visualai.backend.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * An immutable cached response body together with the strong ETag that identifies it.
+ */
+@Getter
+@AllArgsConstructor
+public class CachedView<T> {
+    private final T body;
+    private final String etag;
+
+    // For GET requests Spring compares the ETag with If-None-Match and answers 304 itself
+    public ResponseEntity<T> toResponse() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .body(body);
+    }
+}
@@ -0,0 +1,334 @@
+package com.visualai.backend.cache;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Write-behind store for shopping carts. An active user's cart is held in
+ * memory and mutated there under a striped lock, so cart clicks cost no
+ * database round trip. Dirty carts are diffed against what was last written
+ * and flushed together every {@code cart.flush-interval-ms}, in one transaction
+ * of batched inserts, updates and deletes; ten quantity clicks between flushes
+ * become a single UPDATE. Checkout flushes the user's cart first, and shutdown
+ * flushes everything.
+ *
+ * If the shared transaction fails, each cart is retried in a transaction of its
+ * own, so one bad cart cannot hold back everyone else's. A cart that keeps
+ * failing is dropped after {@value #MAX_FLUSH_ATTEMPTS} attempts and reloaded
+ * from cart_items. A cart whose UPDATE matched no row was changed underneath
+ * us, e.g. by a checkout, and is reloaded too.
+ *
+ * Carts are per instance, so several backend instances need sticky sessions.
+ */
+@Slf4j
+@Component
+public class CartStore {
+
+    private static final int MAX_FLUSH_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate flushTransaction;
+    private final long idleTtlMs;
+    private final ReentrantLock[] stripes;
+    // Serializes flushes, so a cart's persisted snapshot is never written twice
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Map<Long, UserCart> carts = new ConcurrentHashMap<>();
+
+    public CartStore(JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${cart.lock-stripes:64}") int lockStripes,
+            @Value("${cart.idle-ttl-ms:1800000}") long idleTtlMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Commits on its own, so a checkout that rolls back can't undo a flush
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.idleTtlMs = idleTtlMs;
+        this.stripes = new ReentrantLock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public List<CartLine> getLines(Long userId) {
+        ReentrantLock lock = stripe(userId);
+        lock.lock();
+        try {
+            UserCart cart = load(userId);
+            cart.lastAccess = System.currentTimeMillis();
+            return List.copyOf(cart.lines.values());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies a mutation to the user's lines, keyed by product id, and marks the
+     * cart for the next flush. If the mutation throws, the cart stays as it was
+     * marked before; mutations should validate before they modify.
+     */
+    public <T> T update(Long userId, Function<Map<Long, CartLine>, T> mutation) {
+        ReentrantLock lock = stripe(userId);
+        lock.lock();
+        try {
+            UserCart cart = load(userId);
+            T result = mutation.apply(cart.lines);
+            cart.dirty = true;
+            cart.lastAccess = System.currentTimeMillis();
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the user's pending changes now, e.g. before checkout reads cart_items.
+     */
+    public void flush(Long userId) {
+        flush(List.of(userId));
+    }
+
+    /**
+     * Drops the in-memory copy, e.g. after checkout deleted the rows; the next
+     * access reloads from cart_items.
+     */
+    public void discard(Long userId) {
+        flushLock.lock();
+        try {
+            ReentrantLock lock = stripe(userId);
+            lock.lock();
+            try {
+                carts.remove(userId);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cart.flush-interval-ms:2000}")
+    public void flushDirty() {
+        try {
+            flush(List.copyOf(carts.keySet()));
+        } catch (RuntimeException e) {
+            log.error("Flushing carts failed; will retry", e);
+            return;
+        }
+        evictIdle();
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        try {
+            flush(List.copyOf(carts.keySet()));
+        } catch (RuntimeException e) {
+            log.error("Flushing carts on shutdown failed; unsaved cart changes are lost", e);
+        }
+    }
+
+    private void flush(Collection<Long> userIds) {
+        flushLock.lock();
+        try {
+            List<PendingFlush> pending = new ArrayList<>();
+            for (Long userId : userIds) {
+                ReentrantLock lock = stripe(userId);
+                lock.lock();
+                try {
+                    UserCart cart = carts.get(userId);
+                    if (cart != null && cart.dirty) {
+                        pending.add(new PendingFlush(userId, cart, new LinkedHashMap<>(cart.lines)));
+                        cart.dirty = false;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            try {
+                write(pending);
+            } catch (RuntimeException e) {
+                if (pending.size() == 1) {
+                    failed(pending.get(0), e);
+                    throw e;
+                }
+                log.warn("Flushing {} carts together failed; retrying cart by cart", pending.size(), e);
+                for (PendingFlush flush : pending) {
+                    try {
+                        write(List.of(flush));
+                    } catch (RuntimeException cartFailure) {
+                        failed(flush, cartFailure);
+                    }
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Caller holds the flush lock
+    private void write(List<PendingFlush> pending) {
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        // The cart each UPDATE belongs to, to act on its row count
+        List<PendingFlush> updated = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (PendingFlush flush : pending) {
+            flush.snapshot.forEach((productId, line) -> {
+                CartLine before = flush.cart.persisted.get(productId);
+                if (before == null) {
+                    inserts.add(new Object[]{flush.userId, productId, line.quantity(),
+                            line.selectedColor(), line.selectedSize()});
+                } else if (!line.sameContents(before)) {
+                    updates.add(new Object[]{line.quantity(), line.selectedColor(), line.selectedSize(),
+                            flush.userId, productId});
+                    updated.add(flush);
+                }
+            });
+            flush.cart.persisted.keySet().stream()
+                    .filter(productId -> !flush.snapshot.containsKey(productId))
+                    .forEach(productId -> deletes.add(new Object[]{flush.userId, productId}));
+        }
+
+        Set<PendingFlush> stale = Collections.newSetFromMap(new IdentityHashMap<>());
+        flushTransaction.executeWithoutResult(status -> {
+            if (!deletes.isEmpty()) {
+                jdbcTemplate.batchUpdate("DELETE FROM cart_items WHERE user_id = ? AND product_id = ?", deletes);
+            }
+            if (!updates.isEmpty()) {
+                int[] counts = jdbcTemplate.batchUpdate("UPDATE cart_items SET quantity = ?, selected_color = ?, "
+                        + "selected_size = ? WHERE user_id = ? AND product_id = ?", updates);
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) {
+                        stale.add(updated.get(i));
+                    }
+                }
+            }
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate("INSERT INTO cart_items (user_id, product_id, quantity, selected_color, selected_size) "
+                        + "VALUES (?, ?, ?, ?, ?)", inserts);
+            }
+        });
+        for (PendingFlush flush : pending) {
+            flush.cart.failedFlushes = 0;
+            if (stale.contains(flush)) {
+                log.info("Cart of user {} no longer matches cart_items; reloading it", flush.userId);
+                drop(flush);
+            } else {
+                flush.cart.persisted = flush.snapshot;
+            }
+        }
+        log.debug("Flushed {} carts: {} inserts, {} updates, {} deletes",
+                pending.size(), inserts.size(), updates.size(), deletes.size());
+    }
+
+    private void failed(PendingFlush flush, RuntimeException e) {
+        flush.cart.dirty = true;
+        if (++flush.cart.failedFlushes < MAX_FLUSH_ATTEMPTS) {
+            log.warn("Flushing the cart of user {} failed; will retry", flush.userId, e);
+            return;
+        }
+        log.error("Flushing the cart of user {} failed {} times; dropping its unsaved changes",
+                flush.userId, MAX_FLUSH_ATTEMPTS, e);
+        drop(flush);
+    }
+
+    // The next access reloads the cart from cart_items
+    private void drop(PendingFlush flush) {
+        ReentrantLock lock = stripe(flush.userId);
+        lock.lock();
+        try {
+            carts.remove(flush.userId, flush.cart);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTtlMs;
+        flushLock.lock();
+        try {
+            carts.forEach((userId, cart) -> {
+                ReentrantLock lock = stripe(userId);
+                lock.lock();
+                try {
+                    if (!cart.dirty && cart.lastAccess < cutoff) {
+                        carts.remove(userId);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            });
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Caller holds the user's stripe lock
+    private UserCart load(Long userId) {
+        UserCart cart = carts.get(userId);
+        if (cart != null) {
+            return cart;
+        }
+        cart = new UserCart();
+        List<CartLine> rows = jdbcTemplate.query(
+                "SELECT id, product_id, quantity, selected_color, selected_size FROM cart_items WHERE user_id = ? ORDER BY id",
+                (rs, rowNum) -> new CartLine(rs.getLong("id"), rs.getLong("product_id"), rs.getInt("quantity"),
+                        rs.getString("selected_color"), rs.getString("selected_size")),
+                userId);
+        for (CartLine row : rows) {
+            cart.lines.put(row.productId(), row);
+        }
+        cart.persisted = new LinkedHashMap<>(cart.lines);
+        carts.put(userId, cart);
+        return cart;
+    }
+
+    private ReentrantLock stripe(Long userId) {
+        return stripes[Math.floorMod(userId.hashCode(), stripes.length)];
+    }
+
+    /**
+     * One cart line. {@code id} is the cart_items row id, or null until the
+     * line has been flushed and the cart reloaded.
+     */
+    public record CartLine(Long id, Long productId, int quantity, String selectedColor, String selectedSize) {
+
+        public CartLine withQuantity(int newQuantity) {
+            return new CartLine(id, productId, newQuantity, selectedColor, selectedSize);
+        }
+
+        boolean sameContents(CartLine other) {
+            return quantity == other.quantity
+                    && Objects.equals(selectedColor, other.selectedColor)
+                    && Objects.equals(selectedSize, other.selectedSize);
+        }
+    }
+
+    private static final class UserCart {
+        final Map<Long, CartLine> lines = new LinkedHashMap<>();
+        // As last written to cart_items; only touched under the flush lock or while loading
+        Map<Long, CartLine> persisted = Map.of();
+        volatile boolean dirty;
+        // Consecutive failed flushes; only touched under the flush lock
+        int failedFlushes;
+        long lastAccess = System.currentTimeMillis();
+    }
+
+    private record PendingFlush(Long userId, UserCart cart, Map<Long, CartLine> snapshot) {
+    }
+}
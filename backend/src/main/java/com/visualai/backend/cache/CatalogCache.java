@@ -0,0 +1,197 @@
+package com.visualai.backend.cache;
+
+import com.visualai.backend.dto.CategoryDTO;
+import com.visualai.backend.dto.ProductDTO;
+import com.visualai.backend.event.CategoryStatsChangedEvent;
+import com.visualai.backend.event.ProductChangedEvent;
+import com.visualai.backend.service.CategoryService;
+import com.visualai.backend.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through snapshot of the catalog DTOs served by the product and category
+ * endpoints. Entries are bounded LRU maps and every entry carries a strong ETag
+ * derived from the cache version it was loaded at, so clients can revalidate
+ * with If-None-Match and get a 304 without the body being rebuilt.
+ *
+ * Misses go through a {@link SingleFlight} per map, so a burst of requests for
+ * the same uncached key (a product going viral, the category grid right after
+ * an invalidation) costs one database load rather than one per request.
+ */
+@Slf4j
+@Component
+public class CatalogCache {
+
+    private static final String ALL_PRODUCTS = "";
+    private static final String ALL_CATEGORIES = "";
+
+    private final ProductService productService;
+    private final CategoryService categoryService;
+
+    // Distinguishes ETags across restarts, since the version counter starts over
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    private final Map<Long, CachedView<ProductDTO>> products;
+    private final Map<String, CachedView<List<ProductDTO>>> listings;
+    private final Map<String, CachedView<List<CategoryDTO>>> categories;
+
+    private final SingleFlight<Long, CachedView<ProductDTO>> productLoads;
+    private final SingleFlight<String, CachedView<List<ProductDTO>>> listingLoads;
+    private final SingleFlight<String, CachedView<List<CategoryDTO>>> categoryLoads;
+
+    public CatalogCache(ProductService productService,
+            CategoryService categoryService,
+            MeterRegistry meterRegistry,
+            @Value("${catalog.cache.max-products:10000}") int maxProducts,
+            @Value("${catalog.cache.max-listings:64}") int maxListings) {
+        this.productService = productService;
+        this.categoryService = categoryService;
+        this.products = boundedLru(maxProducts);
+        this.listings = boundedLru(maxListings);
+        this.categories = boundedLru(1);
+        this.productLoads = new SingleFlight<>(meterRegistry, "product");
+        this.listingLoads = new SingleFlight<>(meterRegistry, "listing");
+        this.categoryLoads = new SingleFlight<>(meterRegistry, "categories");
+    }
+
+    public CachedView<List<ProductDTO>> getAllProducts() {
+        return readThrough(listings, listingLoads, ALL_PRODUCTS, "products",
+                () -> List.copyOf(productService.getAllProducts()));
+    }
+
+    public CachedView<List<ProductDTO>> getProductsByCategory(String category) {
+        return readThrough(listings, listingLoads, category, "category",
+                () -> List.copyOf(productService.getProductsByCategory(category)));
+    }
+
+    public Optional<CachedView<ProductDTO>> getProductById(Long id) {
+        return Optional.ofNullable(readThrough(products, productLoads, id, "product-" + id,
+                () -> productService.getProductById(id).orElse(null)));
+    }
+
+    /**
+     * Products for the given ids in request order, skipping unknown ids. Cache
+     * misses are loaded together with a single query.
+     */
+    public List<ProductDTO> getProductsByIds(List<Long> ids) {
+        Map<Long, ProductDTO> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            CachedView<ProductDTO> cached = products.get(id);
+            if (cached != null) {
+                found.put(id, cached.getBody());
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long observed = version.get();
+            List<ProductDTO> loaded = productService.getProductsByIds(missing);
+            for (ProductDTO product : loaded) {
+                found.put(product.getId(), product);
+                products.put(product.getId(), new CachedView<>(product, etag("product-" + product.getId(), observed)));
+            }
+            // Same race as readThrough: drop entries loaded across an invalidation
+            if (version.get() != observed) {
+                loaded.forEach(product -> products.remove(product.getId()));
+            }
+        }
+
+        return ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    public CachedView<List<CategoryDTO>> getAllCategories() {
+        return readThrough(categories, categoryLoads, ALL_CATEGORIES, "categories",
+                () -> List.copyOf(categoryService.getAllCategories()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        version.incrementAndGet();
+        products.remove(event.getProductId());
+        // Listings and category aggregates may include the product under its old values
+        listings.clear();
+        categories.clear();
+    }
+
+    // The grid carries the stats index's counts, which change after the product
+    // events above and on rebuilds that no product write triggers
+    @EventListener
+    public void onCategoryStatsChanged(CategoryStatsChangedEvent event) {
+        version.incrementAndGet();
+        categories.clear();
+    }
+
+    public void invalidateAll() {
+        version.incrementAndGet();
+        products.clear();
+        listings.clear();
+        categories.clear();
+        log.info("Catalog cache invalidated");
+    }
+
+    private <K, V> CachedView<V> readThrough(Map<K, CachedView<V>> cache, SingleFlight<K, CachedView<V>> loads,
+            K key, String tag, Supplier<V> loader) {
+        CachedView<V> cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        return loads.load(key, () -> load(cache, key, tag, loader));
+    }
+
+    private <K, V> CachedView<V> load(Map<K, CachedView<V>> cache, K key, String tag, Supplier<V> loader) {
+        // Another load may have filled the entry between our miss and joining the flight
+        CachedView<V> cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long observed = version.get();
+        V value = loader.get();
+        if (value == null) {
+            return null;
+        }
+        CachedView<V> view = new CachedView<>(value, etag(tag, observed));
+        cache.put(key, view);
+        // An invalidation raced with the load: don't keep a possibly stale entry
+        if (version.get() != observed) {
+            cache.remove(key, view);
+        }
+        return view;
+    }
+
+    private String etag(String tag, long observed) {
+        return tag + "-" + epoch + "-" + observed;
+    }
+
+    private static <K, V> Map<K, V> boundedLru(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+}
@@ -0,0 +1,69 @@
+package com.visualai.backend.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent loads of the same key into one: the first caller runs
+ * the loader and callers arriving while it runs wait for its result instead of
+ * hitting the database themselves. Nothing is remembered once the load ends;
+ * caching the result is up to the caller.
+ *
+ * Counts executed and coalesced loads as {@code catalog.cache.loads}, tagged
+ * with the cache name and outcome.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executed;
+    private final Counter coalesced;
+
+    public SingleFlight(MeterRegistry meterRegistry, String cache) {
+        this.executed = Counter.builder("catalog.cache.loads")
+                .description("Cache-miss loads, by whether they ran or joined one already running")
+                .tags("cache", cache, "outcome", "executed")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("catalog.cache.loads")
+                .description("Cache-miss loads, by whether they ran or joined one already running")
+                .tags("cache", cache, "outcome", "coalesced")
+                .register(meterRegistry);
+    }
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw e;
+            }
+        }
+
+        executed.increment();
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // Errors too, or the callers waiting on this load would never return
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+}
@@ -3,16 +3,20 @@ package com.visualai.backend.controller;
 import com.visualai.backend.dto.AuthResponse;
 import com.visualai.backend.dto.LoginRequest;
 import com.visualai.backend.dto.RegisterRequest;
-import com.visualai.backend.entity.User;
+import com.visualai.backend.security.AuthenticatedUser;
+import com.visualai.backend.security.HashingOverloadedException;
 import com.visualai.backend.service.AuthService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -21,35 +25,53 @@ public class AuthController {
 
     private final AuthService authService;
 
+    // Returned as futures: the request thread is released while BCrypt runs
     @PostMapping("/register")
-    public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest request) {
-        try {
-            AuthResponse response = authService.register(request);
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
-        }
+    public CompletableFuture<ResponseEntity<?>> register(@Valid @RequestBody RegisterRequest request) {
+        return authService.register(request)
+                .<ResponseEntity<?>>thenApply(response -> ResponseEntity.status(HttpStatus.CREATED).body(response))
+                .exceptionally(error -> {
+                    Throwable cause = unwrap(error);
+                    if (cause instanceof HashingOverloadedException e) {
+                        return tooManyRequests(e);
+                    }
+                    return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(cause.getMessage())));
+                });
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request) {
-        try {
-            AuthResponse response = authService.login(request);
-            return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", e.getMessage()));
-        }
+    public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody LoginRequest request) {
+        return authService.login(request)
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(error -> {
+                    Throwable cause = unwrap(error);
+                    if (cause instanceof HashingOverloadedException e) {
+                        return tooManyRequests(e);
+                    }
+                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                            .body(Map.of("error", String.valueOf(cause.getMessage())));
+                });
     }
 
     @GetMapping("/me")
-    public ResponseEntity<?> getCurrentUser(@AuthenticationPrincipal User user) {
+    public ResponseEntity<?> getCurrentUser(@AuthenticationPrincipal AuthenticatedUser user) {
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Not authenticated"));
         }
         return ResponseEntity.ok(Map.of(
-                "id", user.getId(),
-                "name", user.getName(),
-                "email", user.getEmail(),
-                "role", user.getRole()));
+                "id", user.id(),
+                "name", user.name(),
+                "email", user.email(),
+                "role", user.role()));
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private ResponseEntity<?> tooManyRequests(HashingOverloadedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", e.getMessage()));
     }
 }
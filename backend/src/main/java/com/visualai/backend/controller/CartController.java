@@ -1,11 +1,14 @@
 package com.visualai.backend.controller;
 
+import com.visualai.backend.dto.CartBulkRequest;
 import com.visualai.backend.dto.CartItemDTO;
 import com.visualai.backend.dto.CartItemRequest;
-import com.visualai.backend.entity.User;
+import com.visualai.backend.security.AuthenticatedUser;
+import com.visualai.backend.service.CartNotSavedException;
 import com.visualai.backend.service.CartService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
@@ -21,24 +24,39 @@ public class CartController {
     private final CartService cartService;
 
     @GetMapping
-    public ResponseEntity<List<CartItemDTO>> getCart(@AuthenticationPrincipal User user) {
-        return ResponseEntity.ok(cartService.getCartItems(user));
+    public ResponseEntity<List<CartItemDTO>> getCart(@AuthenticationPrincipal AuthenticatedUser user) {
+        return ResponseEntity.ok(cartService.getCartItems(user.id()));
     }
 
     @PostMapping
     public ResponseEntity<CartItemDTO> addToCart(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal AuthenticatedUser user,
             @Valid @RequestBody CartItemRequest request) {
-        return ResponseEntity.ok(cartService.addToCart(user, request));
+        return ResponseEntity.ok(cartService.addToCart(user.id(), request));
+    }
+
+    // Many line changes in one call, e.g. merging a guest cart at login; returns the whole cart
+    @PostMapping("/bulk")
+    public ResponseEntity<?> applyBulk(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @Valid @RequestBody CartBulkRequest request) {
+        try {
+            return ResponseEntity.ok(cartService.applyBulk(user.id(), request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (CartNotSavedException e) {
+            // Nothing was applied, unlike a 500 that leaves the client guessing
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
     }
 
     @PutMapping("/{productId}")
     public ResponseEntity<?> updateQuantity(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal AuthenticatedUser user,
             @PathVariable Long productId,
             @RequestBody Map<String, Integer> body) {
         int quantity = body.getOrDefault("quantity", 1);
-        CartItemDTO result = cartService.updateQuantity(user, productId, quantity);
+        CartItemDTO result = cartService.updateQuantity(user.id(), productId, quantity);
         if (result == null) {
             return ResponseEntity.ok(Map.of("message", "Item removed from cart"));
         }
@@ -47,15 +65,15 @@ public class CartController {
 
     @DeleteMapping("/{productId}")
     public ResponseEntity<?> removeFromCart(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal AuthenticatedUser user,
             @PathVariable Long productId) {
-        cartService.removeFromCart(user, productId);
+        cartService.removeFromCart(user.id(), productId);
         return ResponseEntity.ok(Map.of("message", "Item removed from cart"));
     }
 
     @DeleteMapping
-    public ResponseEntity<?> clearCart(@AuthenticationPrincipal User user) {
-        cartService.clearCart(user);
+    public ResponseEntity<?> clearCart(@AuthenticationPrincipal AuthenticatedUser user) {
+        cartService.clearCart(user.id());
         return ResponseEntity.ok(Map.of("message", "Cart cleared"));
     }
 }
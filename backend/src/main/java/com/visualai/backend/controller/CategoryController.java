@@ -1,7 +1,7 @@
 package com.visualai.backend.controller;
 
+import com.visualai.backend.cache.CatalogCache;
 import com.visualai.backend.dto.CategoryDTO;
-import com.visualai.backend.service.CategoryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -13,10 +13,10 @@ import java.util.List;
 @RequiredArgsConstructor
 public class CategoryController {
 
-    private final CategoryService categoryService;
+    private final CatalogCache catalogCache;
 
     @GetMapping
     public ResponseEntity<List<CategoryDTO>> getAllCategories() {
-        return ResponseEntity.ok(categoryService.getAllCategories());
+        return catalogCache.getAllCategories().toResponse();
     }
 }
@@ -1,14 +1,18 @@
 package com.visualai.backend.controller;
 
+import com.visualai.backend.dto.OrderDetailDTO;
 import com.visualai.backend.entity.Order;
-import com.visualai.backend.entity.User;
+import com.visualai.backend.security.AuthenticatedUser;
+import com.visualai.backend.service.IdempotencyConflictException;
+import com.visualai.backend.service.IdempotencyService;
 import com.visualai.backend.service.OrderService;
+import com.visualai.backend.service.OutOfStockException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -16,12 +20,55 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class OrderController {
 
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
 
+    // With an Idempotency-Key, retries and double submits replay the first response
     @PostMapping
     public ResponseEntity<?> placeOrder(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestBody(required = false) Map<String, Object> body) {
+        if (idempotencyKey == null) {
+            return submitOrder(user.id(), body);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Idempotency-Key must be 1-" + MAX_IDEMPOTENCY_KEY_LENGTH + " characters"));
+        }
+        try {
+            return idempotencyService.execute(user.id(), idempotencyKey, () -> submitOrder(user.id(), body));
+        } catch (IdempotencyConflictException | OutOfStockException e) {
+            // Stock is checked again as the order commits, which here happens inside execute()
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Newest first; pass the returned nextCursor to get older orders
+    @GetMapping("/page")
+    public ResponseEntity<?> getOrderPage(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(orderService.getOrderPage(user.id(), cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<OrderDetailDTO> getOrder(
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @PathVariable Long id) {
+        return orderService.getOrderDetail(user.id(), id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<?> submitOrder(Long userId, Map<String, Object> body) {
         try {
             // Extract address from request body if present
             Map<String, String> address = null;
@@ -31,18 +78,15 @@ public class OrderController {
                 address = addr;
             }
 
-            Order order = orderService.placeOrder(user, address);
+            Order order = orderService.placeOrder(userId, address);
             return ResponseEntity.ok(Map.of(
                     "message", "Order placed successfully",
                     "orderId", order.getId(),
                     "total", order.getTotal()));
+        } catch (OutOfStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
-
-    @GetMapping
-    public ResponseEntity<List<Order>> getOrderHistory(@AuthenticationPrincipal User user) {
-        return ResponseEntity.ok(orderService.getOrderHistory(user));
-    }
 }
@@ -1,12 +1,34 @@
 package com.visualai.backend.controller;
 
+import com.visualai.backend.cache.CachedView;
+import com.visualai.backend.cache.CatalogCache;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.visualai.backend.dto.FacetSearchResultDTO;
+import com.visualai.backend.dto.ProductBatchRequest;
 import com.visualai.backend.dto.ProductDTO;
+import com.visualai.backend.dto.SimilarityQueryRequest;
+import com.visualai.backend.dto.SuggestionDTO;
+import com.visualai.backend.search.AutocompleteIndex;
+import com.visualai.backend.search.ProductFacetIndex;
+import com.visualai.backend.service.CoPurchaseService;
 import com.visualai.backend.service.ProductService;
+import com.visualai.backend.service.RelatedProductService;
+import com.visualai.backend.service.VectorSearchService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/products")
@@ -14,35 +36,138 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final RelatedProductService relatedProductService;
+    private final CoPurchaseService coPurchaseService;
+    private final VectorSearchService vectorSearchService;
+    private final CatalogCache catalogCache;
+    private final AutocompleteIndex autocompleteIndex;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     public ResponseEntity<List<ProductDTO>> getAllProducts(
             @RequestParam(required = false) String category) {
         if (category != null && !category.isEmpty()) {
-            return ResponseEntity.ok(productService.getProductsByCategory(category));
+            return catalogCache.getProductsByCategory(category).toResponse();
         }
-        return ResponseEntity.ok(productService.getAllProducts());
+        return catalogCache.getAllProducts().toResponse();
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<?> getProductPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "24") int limit,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice) {
+        try {
+            return ResponseEntity.ok(productService.getProductPage(cursor, limit, category, minPrice, maxPrice));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamProducts(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.writeStartArray();
+                productService.streamProducts(category, minPrice, maxPrice, batch -> {
+                    try {
+                        for (ProductDTO product : batch) {
+                            generator.writeObject(product);
+                        }
+                        generator.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    // Repeat a parameter to select several values, e.g. ?color=%23000000&color=%23FFFFFF&size=M
+    @GetMapping("/filter")
+    public ResponseEntity<FacetSearchResultDTO> filterProducts(
+            @RequestParam MultiValueMap<String, String> params,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "24") int limit) {
+        Map<String, List<String>> selections = new HashMap<>();
+        for (String facet : ProductFacetIndex.FACETS) {
+            List<String> values = params.get(facet);
+            if (values != null) {
+                selections.put(facet, values);
+            }
+        }
+        return ResponseEntity.ok(productService.filterProducts(selections, offset, limit));
+    }
+
+    // Top-k products by cosine similarity to a query embedding (e.g. a CLIP image vector)
+    @PostMapping("/similar")
+    public ResponseEntity<?> findSimilar(@Valid @RequestBody SimilarityQueryRequest request) {
+        if (!vectorSearchService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Vector index is still loading"));
+        }
+        try {
+            return ResponseEntity.ok(Map.of("results",
+                    vectorSearchService.findSimilar(request.getVector(), request.getK())));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Products for up to 100 ids in request order, e.g. to hydrate visual search hits
+    @PostMapping("/batch")
+    public ResponseEntity<List<ProductDTO>> getProductsByIds(@Valid @RequestBody ProductBatchRequest request) {
+        return ResponseEntity.ok(catalogCache.getProductsByIds(request.getIds()));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id) {
-        return productService.getProductById(id)
-                .map(ResponseEntity::ok)
+        return catalogCache.getProductById(id)
+                .map(CachedView::toResponse)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/search")
     public ResponseEntity<List<ProductDTO>> searchProducts(@RequestParam String q) {
-        return ResponseEntity.ok(productService.searchProducts(q));
+        List<ProductDTO> results = productService.searchProducts(q);
+        if (!results.isEmpty()) {
+            autocompleteIndex.recordQuery(q);
+        }
+        return ResponseEntity.ok(results);
+    }
+
+    // Search-box completions for a typed prefix, tolerating one typo
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(autocompleteIndex.suggest(q, limit));
     }
 
     @GetMapping("/{id}/related")
     public ResponseEntity<List<ProductDTO>> getRelatedProducts(
             @PathVariable Long id,
             @RequestParam(defaultValue = "4") int limit) {
-        return productService.getProductById(id)
+        return catalogCache.getProductById(id)
                 .map(product -> ResponseEntity.ok(
-                        productService.getRelatedProducts(id, product.getCategory(), limit)))
+                        relatedProductService.getRelatedProducts(id, product.getBody().getCategory(), limit)))
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    @GetMapping("/{id}/bought-together")
+    public ResponseEntity<List<ProductDTO>> getBoughtTogether(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "4") int limit) {
+        List<Long> ids = List.copyOf(coPurchaseService.topComplements(id, limit).keySet());
+        return ResponseEntity.ok(catalogCache.getProductsByIds(ids));
+    }
 }
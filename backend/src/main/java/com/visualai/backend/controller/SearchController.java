@@ -0,0 +1,94 @@
+package com.visualai.backend.controller;
+
+import com.visualai.backend.search.ProductFacetIndex;
+import com.visualai.backend.service.HybridSearchService;
+import com.visualai.backend.service.VectorSearchService;
+import com.visualai.backend.service.VisualSearchGateway;
+import com.visualai.backend.service.VisualSearchOverloadedException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final VisualSearchGateway visualSearchGateway;
+    private final VectorSearchService vectorSearchService;
+    private final HybridSearchService hybridSearchService;
+
+    // Same contract as the AI service's /api/search/visual, plus queue and batch timings
+    @PostMapping("/visual")
+    public ResponseEntity<?> visualSearch(@RequestParam("image") MultipartFile image) throws IOException {
+        if (image.getContentType() != null && !image.getContentType().startsWith("image/")) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Invalid file type. Please upload an image (JPG, PNG, WebP)."));
+        }
+        if (image.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Empty image file."));
+        }
+        if (!vectorSearchService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Vector index is still loading"));
+        }
+        try {
+            return ResponseEntity.ok(visualSearchGateway.search(
+                    image.getBytes(), image.getOriginalFilename(), image.getContentType()));
+        } catch (VisualSearchOverloadedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RestClientException e) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                    .body(Map.of("error", "AI service error: " + e.getMessage()));
+        }
+    }
+
+    // Keyword and visual candidates fused by reciprocal rank, then facet-filtered (same params as /products/filter)
+    @PostMapping("/hybrid")
+    public ResponseEntity<?> hybridSearch(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) MultipartFile image,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) Long budgetMs,
+            @RequestParam MultiValueMap<String, String> params) throws IOException {
+        boolean hasImage = image != null && !image.isEmpty();
+        if ((q == null || q.isBlank()) && !hasImage) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Provide a query, an image, or both"));
+        }
+        if (hasImage && image.getContentType() != null && !image.getContentType().startsWith("image/")) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Invalid file type. Please upload an image (JPG, PNG, WebP)."));
+        }
+        if (limit < 1 || limit > 100 || (budgetMs != null && (budgetMs < 1 || budgetMs > 5000))) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "limit must be between 1 and 100 and budgetMs between 1 and 5000"));
+        }
+
+        Map<String, List<String>> selections = new HashMap<>();
+        for (String facet : ProductFacetIndex.FACETS) {
+            List<String> values = params.get(facet);
+            if (values != null) {
+                selections.put(facet, values);
+            }
+        }
+        return ResponseEntity.ok(hybridSearchService.search(q,
+                hasImage ? image.getBytes() : null,
+                hasImage ? image.getOriginalFilename() : null,
+                hasImage ? image.getContentType() : null,
+                selections, limit, budgetMs));
+    }
+}
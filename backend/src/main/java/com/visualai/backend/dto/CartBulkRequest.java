@@ -0,0 +1,26 @@
+package com.visualai.backend.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class CartBulkRequest {
+    // Lines to add or change; each quantity replaces the line's, or adds to it when merging
+    @Valid
+    @NotNull
+    @Size(max = 100, message = "At most 100 upserts per request")
+    private List<@NotNull CartItemRequest> upserts = new ArrayList<>();
+
+    // Product ids to remove, applied before the upserts
+    @NotNull
+    @Size(max = 100, message = "At most 100 deletes per request")
+    private List<@NotNull Long> deletes = new ArrayList<>();
+
+    // True to add quantities to existing lines, e.g. when merging a guest cart at login
+    private boolean merge;
+}
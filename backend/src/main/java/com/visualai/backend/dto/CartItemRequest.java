@@ -2,6 +2,7 @@ package com.visualai.backend.dto;
 
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 @Data
@@ -12,6 +13,10 @@ public class CartItemRequest {
     @Min(value = 1, message = "Quantity must be at least 1")
     private int quantity = 1;
 
+    // cart_items columns are VARCHAR(255); a longer value would fail the write-behind flush
+    @Size(max = 255, message = "Color must be at most 255 characters")
     private String selectedColor;
+
+    @Size(max = 255, message = "Size must be at most 255 characters")
     private String selectedSize;
 }
@@ -11,4 +11,7 @@ public class CategoryDTO {
     private String name;
     private String image;
     private Integer count;
+    private Integer inStockCount;
+    private Double minPrice;
+    private Double maxPrice;
 }
@@ -0,0 +1,16 @@
+package com.visualai.backend.dto;
+
+import lombok.*;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FacetSearchResultDTO {
+    private int total;
+    private List<ProductDTO> products;
+    // Facet name -> value -> number of matching products if that value were selected
+    private Map<String, Map<String, Integer>> facets;
+}
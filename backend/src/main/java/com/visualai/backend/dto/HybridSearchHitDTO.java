@@ -0,0 +1,17 @@
+package com.visualai.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class HybridSearchHitDTO {
+    private ProductDTO product;
+    // Reciprocal-rank-fusion score
+    private double score;
+    // 1-based rank in each candidate list; null when the product was not a candidate there
+    private Integer keywordRank;
+    private Integer vectorRank;
+}
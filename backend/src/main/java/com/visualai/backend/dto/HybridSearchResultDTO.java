@@ -0,0 +1,17 @@
+package com.visualai.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class HybridSearchResultDTO {
+    private List<HybridSearchHitDTO> results;
+    // True when a candidate generator missed the latency budget or failed
+    private boolean partial;
+    private long tookMs;
+}
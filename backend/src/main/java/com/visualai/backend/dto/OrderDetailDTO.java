@@ -0,0 +1,27 @@
+package com.visualai.backend.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderDetailDTO {
+    private Long id;
+    private LocalDateTime createdAt;
+    private String status;
+    private double subtotal;
+    private double shipping;
+    private double discount;
+    private double total;
+    private String shippingName;
+    private String shippingPhone;
+    private String shippingStreet;
+    private String shippingCity;
+    private String shippingState;
+    private String shippingZip;
+    private List<OrderItemDTO> items;
+}
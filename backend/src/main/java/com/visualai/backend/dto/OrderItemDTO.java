@@ -0,0 +1,17 @@
+package com.visualai.backend.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderItemDTO {
+    private Long productId;
+    private String productName;
+    private String productImage;
+    private double price;
+    private int quantity;
+    private String selectedColor;
+    private String selectedSize;
+}
@@ -0,0 +1,14 @@
+package com.visualai.backend.dto;
+
+import lombok.*;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderPageDTO {
+    private List<OrderSummaryDTO> items;
+    // Opaque cursor for the next (older) page; null when this is the last page
+    private String nextCursor;
+}
@@ -0,0 +1,18 @@
+package com.visualai.backend.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderSummaryDTO {
+    private Long id;
+    private LocalDateTime createdAt;
+    private String status;
+    private double total;
+    // Units across all lines
+    private int itemCount;
+}
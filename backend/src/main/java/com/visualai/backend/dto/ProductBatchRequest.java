@@ -0,0 +1,14 @@
+package com.visualai.backend.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ProductBatchRequest {
+    @NotNull(message = "Product ids are required")
+    @Size(max = 100, message = "At most 100 product ids per request")
+    private List<@NotNull Long> ids;
+}
@@ -0,0 +1,14 @@
+package com.visualai.backend.dto;
+
+import lombok.*;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductPageDTO {
+    private List<ProductDTO> items;
+    // Opaque cursor for the next page; null when this is the last page
+    private String nextCursor;
+}
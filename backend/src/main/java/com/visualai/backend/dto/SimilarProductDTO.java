@@ -0,0 +1,14 @@
+package com.visualai.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class SimilarProductDTO {
+    private Long productId;
+    // Cosine similarity as a percentage, matching the AI service's response
+    private double similarity;
+}
@@ -0,0 +1,16 @@
+package com.visualai.backend.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class SimilarityQueryRequest {
+    @NotNull(message = "Query vector is required")
+    private float[] vector;
+
+    @Min(value = 1, message = "k must be at least 1")
+    @Max(value = 100, message = "k must be at most 100")
+    private int k = 10;
+}
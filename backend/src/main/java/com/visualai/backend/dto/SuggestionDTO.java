@@ -0,0 +1,17 @@
+package com.visualai.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class SuggestionDTO {
+    private String text;
+    // "product", "category" or "query"
+    private String type;
+    // Set for product suggestions, so the client can link straight to the product
+    private Long productId;
+    private double score;
+}
@@ -0,0 +1,19 @@
+package com.visualai.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class VisualSearchResultDTO {
+    private List<SimilarProductDTO> results;
+    // Time the upload waited for its micro-batch to be dispatched
+    private long queueMs;
+    // Time the batch spent in the AI service's encode call
+    private long batchMs;
+    private int batchSize;
+}
@@ -0,0 +1,39 @@
+package com.visualai.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Stock on hand for one SKU: a product in a given color and size. An empty
+ * color or size means the row covers every value of that option, so a product
+ * without variants needs a single row. Products with no rows at all are not
+ * stock-tracked and fall back to {@link Product#getInStock()}.
+ */
+@Entity
+@Table(name = "inventory", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_inventory_sku", columnNames = {"product_id", "color", "size"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false, length = 32)
+    @Builder.Default
+    private String color = "";
+
+    @Column(nullable = false, length = 32)
+    @Builder.Default
+    private String size = "";
+
+    @Column(nullable = false)
+    private int quantity;
+}
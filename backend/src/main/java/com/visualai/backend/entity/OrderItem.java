@@ -12,8 +12,11 @@ import lombok.*;
 @Builder
 public class OrderItem {
 
+    // Sequence ids (a table on MySQL) let Hibernate batch the inserts; IDENTITY
+    // needs a round trip per row to read the generated key
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -1,12 +1,19 @@
 package com.visualai.backend.entity;
 
+import com.visualai.backend.event.ProductEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_category_id", columnList = "category, id")
+})
+@EntityListeners(ProductEntityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -42,18 +49,30 @@ public class Product {
     @Column(nullable = false)
     private Boolean inStock = true;
 
+    // Each collection is loaded with one subselect for all products returned by
+    // the owning query, so a listing costs 1 + 3 statements however large it is.
     @ElementCollection(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SUBSELECT)
     @CollectionTable(name = "product_images", joinColumns = @JoinColumn(name = "product_id"))
     @Column(name = "image_url")
     private List<String> images = new ArrayList<>();
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SUBSELECT)
     @CollectionTable(name = "product_colors", joinColumns = @JoinColumn(name = "product_id"))
     @Column(name = "color_hex")
     private List<String> colors = new ArrayList<>();
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SUBSELECT)
     @CollectionTable(name = "product_sizes", joinColumns = @JoinColumn(name = "product_id"))
     @Column(name = "size_value")
     private List<String> sizes = new ArrayList<>();
+
+    // Image as last read or written, so an update can tell whether the picture changed;
+    // kept by ProductEntityListener
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private String persistedImage;
 }
@@ -0,0 +1,32 @@
+package com.visualai.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * CLIP image embedding for a product, written by the AI service when it
+ * (re)indexes product images. The vector is little-endian float32.
+ */
+@Entity
+@Table(name = "product_embeddings", indexes = {
+        @Index(name = "idx_product_embeddings_updated_at", columnList = "updated_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductEmbedding {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "BLOB")
+    private byte[] vector;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,46 @@
+package com.visualai.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row in the product_outbox table: a product change written in the same
+ * transaction as the change itself, for the AI service to apply to its index.
+ */
+@Entity
+@Table(name = "product_outbox", indexes = {
+        @Index(name = "idx_product_outbox_processed_id", columnList = "processed_at, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    // SAVED or DELETED, as in ProductChangedEvent.Type
+    @Column(name = "event_type", nullable = false, length = 16)
+    private String eventType;
+
+    // Image URL at the time of the change, so the consumer can re-encode without a join
+    private String image;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Failed applications so far, e.g. an image that would not load; the consumer gives up at a cap
+    @Column(nullable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private int attempts;
+
+    // Set by the consumer once the change is applied, or given up on
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+}
@@ -0,0 +1,32 @@
+package com.visualai.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "related_products", indexes = {
+        @Index(name = "idx_related_products_product_rank", columnList = "product_id, rank_order")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RelatedProduct {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "related_product_id", nullable = false)
+    private Long relatedProductId;
+
+    @Column(nullable = false)
+    private double score;
+
+    // 0-based position in the product's related list
+    @Column(name = "rank_order", nullable = false)
+    private int rankOrder;
+}
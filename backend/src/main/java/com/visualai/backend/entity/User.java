@@ -1,10 +1,12 @@
 package com.visualai.backend.entity;
 
+import com.visualai.backend.event.UserEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserEntityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,9 @@
+package com.visualai.backend.event;
+
+/**
+ * Published by the category stats index after every change to the stats it
+ * serves, including its first build and reconcile rebuilds, so anything that
+ * caches them knows to reload.
+ */
+public class CategoryStatsChangedEvent {
+}
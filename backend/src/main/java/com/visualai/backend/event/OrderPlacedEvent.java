@@ -0,0 +1,19 @@
+package com.visualai.backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Published by checkout once an order has been saved; listeners bound to the
+ * commit phase only see orders that were actually persisted.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderPlacedEvent {
+    private final Long orderId;
+    private final List<Long> productIds;
+    private final LocalDateTime placedAt;
+}
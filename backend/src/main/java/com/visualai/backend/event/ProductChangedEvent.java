@@ -0,0 +1,28 @@
+package com.visualai.backend.event;
+
+import com.visualai.backend.entity.Product;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever a product row is inserted, updated or deleted through JPA.
+ * Listeners that keep in-memory views of the catalog use it to stay in sync.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductChangedEvent {
+
+    public enum Type {
+        SAVED,
+        DELETED
+    }
+
+    private final Product product;
+    private final Type type;
+    // False for saves that left the image alone; the AI index only cares about the picture
+    private final boolean imageChanged;
+
+    public Long getProductId() {
+        return product.getId();
+    }
+}
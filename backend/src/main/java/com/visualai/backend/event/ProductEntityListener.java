@@ -0,0 +1,44 @@
+package com.visualai.backend.event;
+
+import com.visualai.backend.entity.Product;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * JPA lifecycle hook on {@link Product}. Hibernate resolves it through the Spring
+ * bean container, so every write path that goes through the repository publishes
+ * a {@link ProductChangedEvent} without having to remember to do so.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostLoad
+    public void onLoaded(Product product) {
+        product.setPersistedImage(product.getImage());
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Product product) {
+        // Nothing is persisted yet on create, so a new product always counts as an image change
+        boolean imageChanged = product.getPersistedImage() == null
+                || !Objects.equals(product.getPersistedImage(), product.getImage());
+        product.setPersistedImage(product.getImage());
+        eventPublisher.publishEvent(new ProductChangedEvent(product, ProductChangedEvent.Type.SAVED, imageChanged));
+    }
+
+    @PostRemove
+    public void onRemoved(Product product) {
+        eventPublisher.publishEvent(new ProductChangedEvent(product, ProductChangedEvent.Type.DELETED, true));
+    }
+}
@@ -0,0 +1,14 @@
+package com.visualai.backend.event;
+
+import com.visualai.backend.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever a user row is updated or deleted through JPA.
+ */
+@Getter
+@AllArgsConstructor
+public class UserChangedEvent {
+    private final User user;
+}
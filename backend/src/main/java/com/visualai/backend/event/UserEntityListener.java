@@ -0,0 +1,21 @@
+package com.visualai.backend.event;
+
+import com.visualai.backend.entity.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class UserEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostUpdate
+    @PostRemove
+    public void onChanged(User user) {
+        eventPublisher.publishEvent(new UserChangedEvent(user));
+    }
+}
@@ -2,7 +2,11 @@ package com.visualai.backend.repository;
 
 import com.visualai.backend.entity.CartItem;
 import com.visualai.backend.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,11 +14,15 @@ import java.util.Optional;
 
 @Repository
 public interface CartRepository extends JpaRepository<CartItem, Long> {
+    @EntityGraph(attributePaths = "product")
     List<CartItem> findByUser(User user);
 
     Optional<CartItem> findByUserAndProductId(User user, Long productId);
 
     void deleteByUserAndProductId(User user, Long productId);
 
-    void deleteByUser(User user);
+    // One bulk DELETE, rather than the derived query's load-then-remove per row
+    @Modifying
+    @Query("DELETE FROM CartItem c WHERE c.user = :user")
+    void deleteByUser(@Param("user") User user);
 }
@@ -0,0 +1,13 @@
+package com.visualai.backend.repository;
+
+import com.visualai.backend.entity.InventoryItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InventoryRepository extends JpaRepository<InventoryItem, Long> {
+    List<InventoryItem> findByProductIdIn(Collection<Long> productIds);
+}
@@ -0,0 +1,24 @@
+package com.visualai.backend.repository;
+
+import com.visualai.backend.entity.OrderItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    // Rows of [orderId, productId]
+    @Query("SELECT oi.order.id, oi.productId FROM OrderItem oi WHERE oi.order.id IN :orderIds")
+    List<Object[]> findProductIdsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    // Rows of [orderId, total units]
+    @Query("SELECT oi.order.id, SUM(oi.quantity) FROM OrderItem oi WHERE oi.order.id IN :orderIds GROUP BY oi.order.id")
+    List<Object[]> sumQuantitiesByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    List<OrderItem> findByOrderIdOrderByIdAsc(Long orderId);
+}
@@ -1,13 +1,37 @@
 package com.visualai.backend.repository;
 
 import com.visualai.backend.entity.Order;
-import com.visualai.backend.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByUserOrderByCreatedAtDesc(User user);
+    // Rows of [id, createdAt, status, total], newest first; served by idx_orders_user_created
+    @Query("SELECT o.id, o.createdAt, o.status, o.total FROM Order o WHERE o.user.id = :userId " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Object[]> findSummaries(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT o.id, o.createdAt, o.status, o.total FROM Order o WHERE o.user.id = :userId " +
+            "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Object[]> findSummariesBefore(@Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    Optional<Order> findByIdAndUserId(Long id, Long userId);
+
+    @Query("SELECT MAX(o.id) FROM Order o")
+    Long findMaxId();
+
+    // Rows of [orderId, createdAt], walked in id order for history replays
+    @Query("SELECT o.id, o.createdAt FROM Order o WHERE o.id > :afterId AND o.id <= :maxId ORDER BY o.id")
+    List<Object[]> findOrderKeys(@Param("afterId") Long afterId, @Param("maxId") Long maxId, Pageable pageable);
 }
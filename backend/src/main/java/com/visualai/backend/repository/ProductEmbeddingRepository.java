@@ -0,0 +1,24 @@
+package com.visualai.backend.repository;
+
+import com.visualai.backend.entity.ProductEmbedding;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ProductEmbeddingRepository extends JpaRepository<ProductEmbedding, Long> {
+
+    // Both skip embeddings left behind by deleted products, so a resync can't bring them back
+    @Query("SELECT e FROM ProductEmbedding e WHERE e.productId > :afterId " +
+            "AND EXISTS (SELECT p.id FROM Product p WHERE p.id = e.productId) ORDER BY e.productId")
+    List<ProductEmbedding> findLiveAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT e FROM ProductEmbedding e WHERE e.updatedAt >= :since " +
+            "AND EXISTS (SELECT p.id FROM Product p WHERE p.id = e.productId) ORDER BY e.updatedAt")
+    List<ProductEmbedding> findLiveUpdatedSince(@Param("since") LocalDateTime since);
+}
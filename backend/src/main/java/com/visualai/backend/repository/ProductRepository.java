@@ -1,6 +1,7 @@
 package com.visualai.backend.repository;
 
 import com.visualai.backend.entity.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -16,5 +17,22 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :query, '%')) OR LOWER(p.description) LIKE LOWER(CONCAT('%', :query, '%'))")
     List<Product> searchByNameOrDescription(@Param("query") String query);
 
-    List<Product> findByCategoryAndIdNot(String category, Long id);
+    List<Product> findByCategoryAndIdNot(String category, Long id, Pageable pageable);
+
+    // Keyset page: rows strictly after the cursor id, served by the primary key / (category, id) index
+    @Query("SELECT p FROM Product p WHERE p.id > :afterId " +
+            "AND (:category IS NULL OR p.category = :category) " +
+            "AND (:minPrice IS NULL OR p.price >= :minPrice) " +
+            "AND (:maxPrice IS NULL OR p.price <= :maxPrice) " +
+            "ORDER BY p.id")
+    List<Product> findPageAfter(@Param("afterId") Long afterId,
+            @Param("category") String category,
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice,
+            Pageable pageable);
+
+    // Rows of [category, count, inStockCount, minPrice, maxPrice]; only used to reconcile CategoryStatsIndex
+    @Query("SELECT p.category, COUNT(p), SUM(CASE WHEN p.inStock = true THEN 1 ELSE 0 END), MIN(p.price), MAX(p.price) " +
+            "FROM Product p WHERE p.category IS NOT NULL GROUP BY p.category")
+    List<Object[]> aggregateByCategory();
 }
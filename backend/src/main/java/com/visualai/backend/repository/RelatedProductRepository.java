@@ -0,0 +1,13 @@
+package com.visualai.backend.repository;
+
+import com.visualai.backend.entity.RelatedProduct;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RelatedProductRepository extends JpaRepository<RelatedProduct, Long> {
+    List<RelatedProduct> findByProductIdOrderByRankOrderAsc(Long productId, Pageable pageable);
+}
@@ -0,0 +1,475 @@
+package com.visualai.backend.search;
+
+import com.visualai.backend.dto.ProductDTO;
+import com.visualai.backend.dto.SuggestionDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Search-box autocomplete over product names, category names and popular
+ * queries, kept in a character trie.
+ *
+ * Every phrase is inserted once per word start, so "shi" completes "Cotton
+ * Shirt" too. Each node caches the best {@value #MAX_SUGGESTIONS} entries of its
+ * subtree by weight, so an exact prefix costs one walk down the trie. Typos are
+ * handled by a bounded edit-distance walk (insertions, deletions, substitutions
+ * and adjacent transpositions) that only visits nodes within one edit of the
+ * typed prefix; fuzzy hits are ranked below exact ones.
+ *
+ * Weights: products by rating and review count, categories by product count,
+ * queries by how often they were searched with results. A query's weight only
+ * moves when its count reaches the threshold or doubles, so repeat searches of
+ * a popular query stay off the write lock.
+ */
+@Component
+public class AutocompleteIndex implements ProductIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final double FUZZY_PENALTY = 0.5;
+    // Shorter prefixes are too ambiguous to correct
+    private static final int MIN_FUZZY_LENGTH = 3;
+    private static final int MIN_QUERY_LENGTH = 3;
+    // Long names only get keys for their first words
+    private static final int MAX_KEYS_PER_PHRASE = 8;
+    // Share of tracked queries dropped, lowest counts first, when the cap is reached
+    private static final double EVICTION_FRACTION = 0.1;
+
+    private final int minQueryCount;
+    private final int maxTrackedQueries;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root = new Node();
+    private final Map<Long, Entry> productEntries = new HashMap<>();
+    private final Map<Long, String> productCategories = new HashMap<>();
+    private final Map<String, Entry> categoryEntries = new HashMap<>();
+    private final Map<String, Integer> categoryCounts = new HashMap<>();
+    private final Map<String, Entry> queryEntries = new HashMap<>();
+    // Exact counters, so each threshold crossing is seen by exactly one search
+    private final Map<String, AtomicLong> queryCounts = new ConcurrentHashMap<>();
+    private final Lock evictionLock = new ReentrantLock();
+    // During rebuild, cached tops are computed once at the end instead of per insert
+    private boolean bulkLoading;
+
+    public AutocompleteIndex(@Value("${autocomplete.min-query-count:3}") int minQueryCount,
+            @Value("${autocomplete.max-tracked-queries:10000}") int maxTrackedQueries) {
+        this.minQueryCount = minQueryCount;
+        this.maxTrackedQueries = maxTrackedQueries;
+    }
+
+    @Override
+    public void rebuild(Collection<ProductDTO> products) {
+        lock.writeLock().lock();
+        try {
+            root = new Node();
+            productEntries.clear();
+            productCategories.clear();
+            categoryEntries.clear();
+            categoryCounts.clear();
+            bulkLoading = true;
+            products.forEach(this::addProduct);
+            // Popular queries survive a catalog rebuild
+            queryEntries.values().forEach(this::insert);
+            bulkLoading = false;
+            categoryCounts.forEach((category, count) -> {
+                Entry entry = categoryEntry(category, count);
+                categoryEntries.put(category, entry);
+                insert(entry);
+            });
+            refreshAll(root);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void upsert(ProductDTO product) {
+        lock.writeLock().lock();
+        try {
+            removeProduct(product.getId());
+            addProduct(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeProduct(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Counts a search that returned results; once a query has been seen
+     * {@code autocomplete.min-query-count} times it is offered as a suggestion.
+     */
+    public void recordQuery(String query) {
+        String key = normalize(query);
+        if (key.length() < MIN_QUERY_LENGTH) {
+            return;
+        }
+        AtomicLong counter = queryCounts.get(key);
+        if (counter == null) {
+            if (queryCounts.size() >= maxTrackedQueries) {
+                evictLeastSearched();
+            }
+            counter = queryCounts.computeIfAbsent(key, k -> new AtomicLong());
+        }
+        long count = counter.incrementAndGet();
+        if (count < minQueryCount || (count > minQueryCount && Long.bitCount(count) != 1)) {
+            return;
+        }
+
+        // Scaled so a query searched a handful of times competes with well-reviewed products
+        double weight = 2 + 3 * Math.log1p(count);
+        lock.writeLock().lock();
+        try {
+            Entry existing = queryEntries.get(key);
+            // A search that crossed a lower threshold can get here after one that crossed a higher one
+            if (existing != null && existing.weight >= weight) {
+                return;
+            }
+            if (existing != null) {
+                delete(existing);
+            }
+            Entry entry = new Entry(key, "query", null, weight);
+            queryEntries.put(key, entry);
+            insert(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Makes room for new queries by forgetting the least searched ones, suggested or not
+    private void evictLeastSearched() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            if (queryCounts.size() < maxTrackedQueries) {
+                return;
+            }
+            List<String> evicted = queryCounts.entrySet().stream()
+                    .map(entry -> Map.entry(entry.getKey(), entry.getValue().get()))
+                    .sorted(Map.Entry.comparingByValue())
+                    .limit(Math.max(1, (long) (maxTrackedQueries * EVICTION_FRACTION)))
+                    .map(Map.Entry::getKey)
+                    .toList();
+            evicted.forEach(queryCounts::remove);
+
+            lock.writeLock().lock();
+            try {
+                for (String key : evicted) {
+                    Entry entry = queryEntries.remove(key);
+                    if (entry != null) {
+                        delete(entry);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        String query = normalize(prefix);
+        if (query.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Entry, Double> scores = new HashMap<>();
+            Node exact = find(query);
+            if (exact != null) {
+                collect(exact, 1, scores);
+            }
+            if (query.length() >= MIN_FUZZY_LENGTH) {
+                int[] row = new int[query.length() + 1];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = i;
+                }
+                fuzzy(root, query, null, row, (char) 0, scores);
+            }
+
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Entry, Double>comparingByValue().reversed()
+                            .thenComparing(entry -> entry.getKey().text))
+                    .limit(Math.min(limit, MAX_SUGGESTIONS))
+                    .map(entry -> new SuggestionDTO(entry.getKey().text, entry.getKey().type,
+                            entry.getKey().productId, entry.getValue()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Walks every child whose path stays within one edit of the query, using
+     * one row of the (optimal string alignment) edit-distance matrix per trie
+     * level; the row two levels up is kept to score transpositions.
+     */
+    private void fuzzy(Node node, String query, int[] beforePrevious, int[] previous, char previousLabel,
+            Map<Entry, Double> scores) {
+        for (int i = 0; i < node.labels.length; i++) {
+            char label = node.labels[i];
+            int[] row = new int[previous.length];
+            row[0] = previous[0] + 1;
+            int best = row[0];
+            for (int j = 1; j < row.length; j++) {
+                int substitution = previous[j - 1] + (query.charAt(j - 1) == label ? 0 : 1);
+                row[j] = Math.min(substitution, Math.min(previous[j] + 1, row[j - 1] + 1));
+                if (beforePrevious != null && j > 1
+                        && query.charAt(j - 1) == previousLabel && query.charAt(j - 2) == label) {
+                    row[j] = Math.min(row[j], beforePrevious[j - 2] + 1);
+                }
+                best = Math.min(best, row[j]);
+            }
+            if (best > 1) {
+                continue;
+            }
+            Node child = node.children[i];
+            if (row[row.length - 1] == 1) {
+                collect(child, FUZZY_PENALTY, scores);
+            }
+            fuzzy(child, query, previous, row, label, scores);
+        }
+    }
+
+    private static void collect(Node node, double factor, Map<Entry, Double> scores) {
+        for (Entry entry : node.top) {
+            scores.merge(entry, entry.weight * factor, Math::max);
+        }
+    }
+
+    private void addProduct(ProductDTO product) {
+        if (product.getName() != null) {
+            double rating = product.getRating() != null ? product.getRating() / 5 : 0.5;
+            int reviews = product.getReviews() != null ? product.getReviews() : 0;
+            Entry entry = new Entry(product.getName(), "product", product.getId(),
+                    1 + rating * Math.log1p(reviews));
+            productEntries.put(product.getId(), entry);
+            insert(entry);
+        }
+        if (product.getCategory() != null) {
+            productCategories.put(product.getId(), product.getCategory());
+            adjustCategory(product.getCategory(), 1);
+        }
+    }
+
+    private void removeProduct(Long productId) {
+        Entry entry = productEntries.remove(productId);
+        if (entry != null) {
+            delete(entry);
+        }
+        String category = productCategories.remove(productId);
+        if (category != null) {
+            adjustCategory(category, -1);
+        }
+    }
+
+    private void adjustCategory(String category, int delta) {
+        int count = categoryCounts.merge(category, delta, Integer::sum);
+        if (bulkLoading) {
+            return;
+        }
+        Entry existing = categoryEntries.remove(category);
+        if (existing != null) {
+            delete(existing);
+        }
+        if (count <= 0) {
+            categoryCounts.remove(category);
+            return;
+        }
+        Entry entry = categoryEntry(category, count);
+        categoryEntries.put(category, entry);
+        insert(entry);
+    }
+
+    private static Entry categoryEntry(String category, int productCount) {
+        return new Entry(category, "category", null, 2 + Math.log1p(productCount));
+    }
+
+    private void insert(Entry entry) {
+        for (String key : entry.keys) {
+            Deque<Node> path = new ArrayDeque<>();
+            Node node = root;
+            path.push(node);
+            for (int i = 0; i < key.length(); i++) {
+                node = node.childOrCreate(key.charAt(i));
+                path.push(node);
+            }
+            node.entries.add(entry);
+            if (!bulkLoading) {
+                path.forEach(Node::refreshTop);
+            }
+        }
+    }
+
+    private static void refreshAll(Node node) {
+        for (Node child : node.children) {
+            refreshAll(child);
+        }
+        node.refreshTop();
+    }
+
+    private void delete(Entry entry) {
+        for (String key : entry.keys) {
+            Deque<Node> path = new ArrayDeque<>();
+            Node node = root;
+            path.push(node);
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+                if (node != null) {
+                    path.push(node);
+                }
+            }
+            if (node == null) {
+                continue;
+            }
+            node.entries.remove(entry);
+            // Bottom-up: drop nodes left empty, then refresh the cached tops above
+            Node child = null;
+            for (Node current : path) {
+                if (child != null && child.isEmpty()) {
+                    current.removeChild(child);
+                }
+                current.refreshTop();
+                child = current;
+            }
+        }
+    }
+
+    private Node find(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        return node;
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : String.join(" ", TextTokenizer.tokenize(text));
+    }
+
+    // A phrase's keys: its normalized text from each word start
+    private static List<String> keysOf(String text) {
+        List<String> words = TextTokenizer.tokenize(text);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < words.size() && i < MAX_KEYS_PER_PHRASE; i++) {
+            keys.add(String.join(" ", words.subList(i, words.size())));
+        }
+        return keys;
+    }
+
+    private static final Comparator<Entry> BY_WEIGHT = Comparator.comparingDouble((Entry entry) -> entry.weight)
+            .reversed()
+            .thenComparing(entry -> entry.text);
+
+    private static final class Entry {
+        final String text;
+        final String type;
+        final Long productId;
+        final double weight;
+        final List<String> keys;
+
+        Entry(String text, String type, Long productId, double weight) {
+            this.text = text;
+            this.type = type;
+            this.productId = productId;
+            this.weight = weight;
+            this.keys = keysOf(text);
+        }
+    }
+
+    /**
+     * Trie node with sorted parallel label/child arrays rather than a map, to
+     * keep the per-node footprint small.
+     */
+    private static final class Node {
+        char[] labels = new char[0];
+        Node[] children = new Node[0];
+        // Entries whose key ends exactly here
+        final List<Entry> entries = new ArrayList<>(1);
+        // Best entries in this subtree, by weight
+        Entry[] top = new Entry[0];
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node childOrCreate(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            Node created = new Node();
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = label;
+            newChildren[insertAt] = created;
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            labels = newLabels;
+            children = newChildren;
+            return created;
+        }
+
+        void removeChild(Node child) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == child) {
+                    char[] newLabels = new char[labels.length - 1];
+                    Node[] newChildren = new Node[children.length - 1];
+                    System.arraycopy(labels, 0, newLabels, 0, i);
+                    System.arraycopy(children, 0, newChildren, 0, i);
+                    System.arraycopy(labels, i + 1, newLabels, i, labels.length - i - 1);
+                    System.arraycopy(children, i + 1, newChildren, i, children.length - i - 1);
+                    labels = newLabels;
+                    children = newChildren;
+                    return;
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return entries.isEmpty() && children.length == 0;
+        }
+
+        void refreshTop() {
+            // Most nodes sit on a single-branch chain and can share their child's array
+            if (entries.isEmpty() && children.length == 1) {
+                top = children[0].top;
+                return;
+            }
+            List<Entry> candidates = new ArrayList<>(entries);
+            for (Node child : children) {
+                for (Entry entry : child.top) {
+                    // A phrase with several keys can reach a node through more than one child
+                    if (!candidates.contains(entry)) {
+                        candidates.add(entry);
+                    }
+                }
+            }
+            candidates.sort(BY_WEIGHT);
+            top = candidates.subList(0, Math.min(MAX_SUGGESTIONS, candidates.size())).toArray(new Entry[0]);
+        }
+    }
+}
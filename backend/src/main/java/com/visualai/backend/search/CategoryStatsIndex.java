@@ -0,0 +1,210 @@
+package com.visualai.backend.search;
+
+import com.visualai.backend.dto.ProductDTO;
+import com.visualai.backend.event.CategoryStatsChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-category product count, in-stock count and price range, maintained
+ * incrementally from product writes instead of a GROUP BY per request.
+ *
+ * Each category keeps its prices as a sorted multiset so min and max survive
+ * removals. Readers get an immutable snapshot that is republished after every
+ * write, so a lookup is a single map get. Every change is announced with a
+ * {@link CategoryStatsChangedEvent} once the new snapshot is visible.
+ */
+@Component
+public class CategoryStatsIndex implements ProductIndex {
+
+    // A lock rather than a monitor, so a virtual thread waiting out a rebuild doesn't pin its carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+    private final Map<String, Accumulator> accumulators = new HashMap<>();
+    private volatile Map<String, CategoryStats> snapshot = Map.of();
+    private volatile boolean ready;
+    // Bumped by every upsert and remove, so a rebuild can tell a write raced its read
+    private volatile long version;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CategoryStatsIndex(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Map<String, CategoryStats> getStats() {
+        return snapshot;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Rebuilds from products read after {@link #version()} returned
+     * {@code sinceVersion}, unless a write landed since: the read may predate
+     * that write and would undo it.
+     *
+     * @return whether the rebuild was applied
+     */
+    public boolean rebuildIfUnchanged(Collection<ProductDTO> products, long sinceVersion) {
+        lock.lock();
+        try {
+            if (version != sinceVersion) {
+                return false;
+            }
+            replaceAll(products);
+        } finally {
+            lock.unlock();
+        }
+        changed();
+        return true;
+    }
+
+    @Override
+    public void rebuild(Collection<ProductDTO> products) {
+        lock.lock();
+        try {
+            replaceAll(products);
+        } finally {
+            lock.unlock();
+        }
+        changed();
+    }
+
+    @Override
+    public void upsert(ProductDTO product) {
+        lock.lock();
+        try {
+            Contribution previous = contributions.get(product.getId());
+            subtract(product.getId());
+            add(product);
+            Contribution current = contributions.get(product.getId());
+            publish(previous, current);
+            version++;
+        } finally {
+            lock.unlock();
+        }
+        changed();
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.lock();
+        try {
+            Contribution previous = subtract(productId);
+            publish(previous, null);
+            version++;
+        } finally {
+            lock.unlock();
+        }
+        changed();
+    }
+
+    private void replaceAll(Collection<ProductDTO> products) {
+        contributions.clear();
+        accumulators.clear();
+        products.forEach(this::add);
+        snapshot = Map.copyOf(publishAll());
+        ready = true;
+    }
+
+    // Outside the lock, so listeners reading the stats never wait on a writer
+    private void changed() {
+        eventPublisher.publishEvent(new CategoryStatsChangedEvent());
+    }
+
+    private void add(ProductDTO product) {
+        if (product.getCategory() == null) {
+            return;
+        }
+        Contribution contribution = new Contribution(product.getCategory(), product.getPrice(),
+                Boolean.TRUE.equals(product.getInStock()));
+        contributions.put(product.getId(), contribution);
+        accumulators.computeIfAbsent(contribution.category, category -> new Accumulator()).add(contribution);
+    }
+
+    private Contribution subtract(Long productId) {
+        Contribution contribution = contributions.remove(productId);
+        if (contribution != null) {
+            Accumulator accumulator = accumulators.get(contribution.category);
+            accumulator.remove(contribution);
+            if (accumulator.count == 0) {
+                accumulators.remove(contribution.category);
+            }
+        }
+        return contribution;
+    }
+
+    // Recomputes only the categories a write touched
+    private void publish(Contribution previous, Contribution current) {
+        Map<String, CategoryStats> next = new HashMap<>(snapshot);
+        for (Contribution touched : new Contribution[]{previous, current}) {
+            if (touched == null) {
+                continue;
+            }
+            Accumulator accumulator = accumulators.get(touched.category);
+            if (accumulator == null) {
+                next.remove(touched.category);
+            } else {
+                next.put(touched.category, accumulator.toStats());
+            }
+        }
+        snapshot = Map.copyOf(next);
+    }
+
+    private Map<String, CategoryStats> publishAll() {
+        Map<String, CategoryStats> all = new HashMap<>();
+        accumulators.forEach((category, accumulator) -> all.put(category, accumulator.toStats()));
+        return all;
+    }
+
+    /**
+     * Aggregates for one category; prices are null when no product in it has one.
+     */
+    public record CategoryStats(int count, int inStockCount, Double minPrice, Double maxPrice) {
+    }
+
+    private record Contribution(String category, Double price, boolean inStock) {
+    }
+
+    private static final class Accumulator {
+        int count;
+        int inStockCount;
+        // Price -> number of products at that price
+        final TreeMap<Double, Integer> prices = new TreeMap<>();
+
+        void add(Contribution contribution) {
+            count++;
+            if (contribution.inStock) {
+                inStockCount++;
+            }
+            if (contribution.price != null) {
+                prices.merge(contribution.price, 1, Integer::sum);
+            }
+        }
+
+        void remove(Contribution contribution) {
+            count--;
+            if (contribution.inStock) {
+                inStockCount--;
+            }
+            if (contribution.price != null) {
+                prices.computeIfPresent(contribution.price, (price, n) -> n > 1 ? n - 1 : null);
+            }
+        }
+
+        CategoryStats toStats() {
+            return new CategoryStats(count, inStockCount,
+                    prices.isEmpty() ? null : prices.firstKey(),
+                    prices.isEmpty() ? null : prices.lastKey());
+        }
+    }
+}
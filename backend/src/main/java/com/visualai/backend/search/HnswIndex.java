@@ -0,0 +1,363 @@
+package com.visualai.backend.search;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Hierarchical Navigable Small World graph for approximate cosine nearest
+ * neighbour search over the unit-length vectors of a {@link VectorSource}.
+ *
+ * Nodes hold only their source row and links; vectors stay in the source, so
+ * similarity is a plain dot product computed in place. Replacing or removing a
+ * key tombstones its node: the node stays in the graph for navigation but is
+ * never returned. Searches widen their beam in proportion to the tombstones so
+ * they still find k live keys; owners rebuild the graph once
+ * {@link #tombstoneRatio()} grows too large. Searches run concurrently under a
+ * read lock; inserts take the write lock.
+ */
+public class HnswIndex {
+
+    private final VectorSource vectors;
+    private final int maxLinks;
+    private final int maxLinksLayer0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<Long, Integer> nodeByKey = new HashMap<>();
+    private int entryPoint = -1;
+    private int topLevel = -1;
+    private int tombstones;
+
+    public HnswIndex(VectorSource vectors, int maxLinks, int efConstruction) {
+        this.vectors = vectors;
+        this.maxLinks = maxLinks;
+        this.maxLinksLayer0 = maxLinks * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(maxLinks);
+    }
+
+    public int dimension() {
+        return vectors.dimension();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodeByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return fraction of graph nodes that are tombstones
+     */
+    public double tombstoneRatio() {
+        lock.readLock().lock();
+        try {
+            return nodes.isEmpty() ? 0 : (double) tombstones / nodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Points a key at a row of the vector source; re-pointing it at the row it
+     * already uses is a no-op.
+     */
+    public void upsert(long key, int row) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = nodeByKey.get(key);
+            if (existing != null) {
+                if (nodes.get(existing).row == row) {
+                    return;
+                }
+                nodes.get(existing).deleted = true;
+                tombstones++;
+            }
+            insert(key, row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long key) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = nodeByKey.remove(key);
+            if (existing != null) {
+                nodes.get(existing).deleted = true;
+                tombstones++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return up to k live keys, most similar first, with their cosine similarity
+     */
+    public List<Match> search(float[] query, int k, int ef) {
+        IntToDoubleFunction scorer = similarityTo(normalize(query));
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return List.of();
+            }
+            int current = entryPoint;
+            for (int level = topLevel; level > 0; level--) {
+                current = greedyClosest(scorer, current, level);
+            }
+            // Tombstones take up beam slots; widen the beam so about ef live nodes still fit
+            int beam = Math.max(ef, k);
+            int live = nodeByKey.size();
+            if (live > 0 && live < nodes.size()) {
+                beam = (int) Math.min(nodes.size(), Math.ceil((double) beam * nodes.size() / live));
+            }
+            List<Match> matches = new ArrayList<>(k);
+            for (Candidate candidate : searchLayer(scorer, current, beam, 0)) {
+                Node node = nodes.get(candidate.node());
+                if (!node.deleted) {
+                    matches.add(new Match(node.key, candidate.similarity()));
+                    if (matches.size() == k) {
+                        break;
+                    }
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Set<Long> keys() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(nodeByKey.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(long key, int row) {
+        int level = randomLevel();
+        int id = nodes.size();
+        Node node = new Node(key, row, level, maxLinks, maxLinksLayer0);
+        nodes.add(node);
+        nodeByKey.put(key, id);
+
+        if (entryPoint < 0) {
+            entryPoint = id;
+            topLevel = level;
+            return;
+        }
+
+        int current = entryPoint;
+        for (int l = topLevel; l > level; l--) {
+            current = greedyClosest(similarityTo(row), current, l);
+        }
+        for (int l = Math.min(level, topLevel); l >= 0; l--) {
+            List<Candidate> candidates = searchLayer(similarityTo(row), current, efConstruction, l);
+            for (int neighbour : selectNeighbours(candidates, maxLinks)) {
+                node.link(l, neighbour);
+                Node other = nodes.get(neighbour);
+                if (!other.link(l, id)) {
+                    shrink(neighbour, l);
+                }
+            }
+            current = candidates.get(0).node();
+        }
+
+        if (level > topLevel) {
+            entryPoint = id;
+            topLevel = level;
+        }
+    }
+
+    // Re-selects the links of a node whose neighbour list overflowed
+    private void shrink(int id, int level) {
+        Node node = nodes.get(id);
+        int[] links = node.links[level];
+        List<Candidate> candidates = new ArrayList<>(node.linkCounts[level] + 1);
+        for (int i = 0; i < node.linkCounts[level]; i++) {
+            candidates.add(new Candidate(links[i], vectors.dot(node.row, nodes.get(links[i]).row)));
+        }
+        candidates.add(new Candidate(node.pendingLink, vectors.dot(node.row, nodes.get(node.pendingLink).row)));
+        candidates.sort(Candidate.BEST_FIRST);
+
+        List<Integer> kept = selectNeighbours(candidates, level == 0 ? maxLinksLayer0 : maxLinks);
+        node.linkCounts[level] = 0;
+        kept.forEach(neighbour -> node.link(level, neighbour));
+    }
+
+    /**
+     * Neighbour selection heuristic from the HNSW paper: prefer candidates that
+     * are closer to the query than to any neighbour already chosen, which keeps
+     * links spread across clusters; top up with the nearest leftovers.
+     */
+    private List<Integer> selectNeighbours(List<Candidate> candidates, int limit) {
+        List<Integer> selected = new ArrayList<>(limit);
+        List<Integer> skipped = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (selected.size() == limit) {
+                break;
+            }
+            int row = nodes.get(candidate.node()).row;
+            boolean diverse = true;
+            for (int chosen : selected) {
+                if (vectors.dot(row, nodes.get(chosen).row) > candidate.similarity()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate.node());
+            } else {
+                skipped.add(candidate.node());
+            }
+        }
+        for (int i = 0; i < skipped.size() && selected.size() < limit; i++) {
+            selected.add(skipped.get(i));
+        }
+        return selected;
+    }
+
+    private int greedyClosest(IntToDoubleFunction scorer, int start, int level) {
+        int current = start;
+        double best = scorer.applyAsDouble(nodes.get(current).row);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            Node node = nodes.get(current);
+            for (int i = 0; i < node.linkCounts[level]; i++) {
+                int neighbour = node.links[level][i];
+                double similarity = scorer.applyAsDouble(nodes.get(neighbour).row);
+                if (similarity > best) {
+                    best = similarity;
+                    current = neighbour;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Beam search within one layer; returns up to ef candidates, best first
+    private List<Candidate> searchLayer(IntToDoubleFunction scorer, int start, int ef, int level) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(Candidate.BEST_FIRST);
+        PriorityQueue<Candidate> results = new PriorityQueue<>(Candidate.BEST_FIRST.reversed());
+
+        Candidate first = new Candidate(start, scorer.applyAsDouble(nodes.get(start).row));
+        visited.set(start);
+        frontier.add(first);
+        results.add(first);
+
+        while (!frontier.isEmpty()) {
+            Candidate current = frontier.poll();
+            if (results.size() >= ef && current.similarity() < results.peek().similarity()) {
+                break;
+            }
+            Node node = nodes.get(current.node());
+            for (int i = 0; i < node.linkCounts[level]; i++) {
+                int neighbour = node.links[level][i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                double similarity = scorer.applyAsDouble(nodes.get(neighbour).row);
+                if (results.size() < ef || similarity > results.peek().similarity()) {
+                    Candidate candidate = new Candidate(neighbour, similarity);
+                    frontier.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> ordered = new ArrayList<>(results);
+        ordered.sort(Candidate.BEST_FIRST);
+        return ordered;
+    }
+
+    private int randomLevel() {
+        return (int) Math.floor(-Math.log(1 - random.nextDouble()) * levelMultiplier);
+    }
+
+    // Scores rows by similarity to another row, or to a query vector
+    private IntToDoubleFunction similarityTo(int row) {
+        return other -> vectors.dot(row, other);
+    }
+
+    private IntToDoubleFunction similarityTo(float[] query) {
+        return other -> vectors.dot(other, query);
+    }
+
+    private float[] normalize(float[] vector) {
+        if (vector.length != vectors.dimension()) {
+            throw new IllegalArgumentException("Expected a " + vectors.dimension() + "-d vector, got " + vector.length);
+        }
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        if (norm == 0) {
+            throw new IllegalArgumentException("Vector must not be all zeros");
+        }
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    public record Match(long key, double similarity) {
+    }
+
+    private record Candidate(int node, double similarity) {
+        static final Comparator<Candidate> BEST_FIRST =
+                Comparator.comparingDouble(Candidate::similarity).reversed();
+    }
+
+    private static final class Node {
+        final long key;
+        final int row;
+        final int[][] links;
+        final int[] linkCounts;
+        // Link that did not fit, waiting for shrink() to decide whether it stays
+        int pendingLink = -1;
+        volatile boolean deleted;
+
+        Node(long key, int row, int level, int maxLinks, int maxLinksLayer0) {
+            this.key = key;
+            this.row = row;
+            this.links = new int[level + 1][];
+            this.linkCounts = new int[level + 1];
+            for (int l = 0; l <= level; l++) {
+                links[l] = new int[l == 0 ? maxLinksLayer0 : maxLinks];
+            }
+        }
+
+        /**
+         * @return false if the layer is full; the link is then parked in
+         * {@link #pendingLink} for the caller to resolve
+         */
+        boolean link(int level, int neighbour) {
+            if (linkCounts[level] == links[level].length) {
+                pendingLink = neighbour;
+                return false;
+            }
+            links[level][linkCounts[level]++] = neighbour;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,478 @@
+package com.visualai.backend.search;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Off-heap store of unit-length float32 vectors keyed by product id, backed by
+ * a memory-mapped file so millions of embeddings cost page cache rather than
+ * heap.
+ *
+ * File layout: a 64-byte header followed by fixed-size segments of
+ * {@value #SEGMENT_ROWS} rows. Each segment holds that many row ids (int64)
+ * followed by the contiguous float32 matrix of their vectors, so growing the
+ * file maps new segments without remapping existing ones. Rows are append-only:
+ * replacing or removing an id overwrites its old row id with a tombstone, and
+ * {@link #compact()} rewrites the live rows into a fresh file.
+ *
+ * One process per directory holds the writer lock; other processes on the host
+ * open the same file read-only, share its page cache and pick up new rows with
+ * {@link #refresh()}. Reads never copy vectors onto the heap.
+ */
+public final class MappedEmbeddingStore implements VectorSource, Closeable {
+
+    public static final int SEGMENT_ROWS = 1 << 16;
+
+    private static final String DATA_FILE = "embeddings.bin";
+    private static final String LOCK_FILE = "embeddings.lock";
+    private static final String COMPACT_FILE = "embeddings.bin.compact";
+
+    private static final int MAGIC = 0x56454D42; // "VEMB"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_DIMENSION = 8;
+    private static final int OFFSET_STATE = 12;
+    private static final int OFFSET_ROW_COUNT = 16;
+    private static final int OFFSET_SYNCED_UP_TO = 24;
+    private static final int STATE_ACTIVE = 0;
+    private static final int STATE_RETIRED = 1;
+    private static final long TOMBSTONE = -1;
+
+    private final Path directory;
+    private final int dimension;
+    private final int rowBytes;
+    private final long segmentBytes;
+    private final FileChannel channel;
+    private final FileLock writerLock;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    // Segments are only ever appended; readers index this snapshot without locking
+    private volatile MappedByteBuffer[] segmentView = new MappedByteBuffer[0];
+    private final Map<Long, Integer> rowById = new ConcurrentHashMap<>();
+    private volatile int rowCount;
+    // Not synchronized: these sections do file I/O, which would pin a virtual thread's carrier
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private MappedEmbeddingStore(Path directory, int dimension, FileChannel channel, FileLock writerLock,
+            MappedByteBuffer header) {
+        this.directory = directory;
+        this.dimension = dimension;
+        this.rowBytes = dimension * Float.BYTES;
+        this.segmentBytes = (long) SEGMENT_ROWS * (Long.BYTES + rowBytes);
+        this.channel = channel;
+        this.writerLock = writerLock;
+        this.header = header;
+    }
+
+    /**
+     * Opens the store in {@code directory}, taking the writer role if no other
+     * process holds it. A writer starts a fresh file when none exists or the
+     * existing one has a different dimension; a reader fails instead.
+     */
+    public static MappedEmbeddingStore open(Path directory, int dimension) throws IOException {
+        // A segment is one MappedByteBuffer, addressed with int offsets
+        if (dimension <= 0 || (long) SEGMENT_ROWS * (Long.BYTES + (long) dimension * Float.BYTES) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Dimension " + dimension + " does not fit "
+                    + SEGMENT_ROWS + "-row segments");
+        }
+        Files.createDirectories(directory);
+        FileLock lock = tryLock(directory.resolve(LOCK_FILE));
+        Path file = directory.resolve(DATA_FILE);
+        if (lock == null) {
+            if (!Files.exists(file)) {
+                throw new IOException("No embedding store at " + file + " and another process holds the writer lock");
+            }
+            return map(directory, file, dimension, null);
+        }
+        try {
+            MappedEmbeddingStore store = map(directory, file, dimension, lock);
+            if (store != null) {
+                return store;
+            }
+            create(file, dimension);
+            return map(directory, file, dimension, lock);
+        } catch (IOException | RuntimeException e) {
+            lock.channel().close();
+            throw e;
+        }
+    }
+
+    public boolean isWritable() {
+        return writerLock != null;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    public int size() {
+        return rowById.size();
+    }
+
+    /**
+     * @return fraction of stored rows that are tombstones
+     */
+    public double deadRatio() {
+        int rows = rowCount;
+        return rows == 0 ? 0 : 1 - (double) rowById.size() / rows;
+    }
+
+    /**
+     * @return snapshot of live product ids and the rows holding their vectors
+     */
+    public Map<Long, Integer> liveRows() {
+        return new HashMap<>(rowById);
+    }
+
+    /**
+     * Caller-defined high-water mark persisted in the header, e.g. the newest
+     * source timestamp already applied.
+     */
+    public long syncedUpTo() {
+        return header.getLong(OFFSET_SYNCED_UP_TO);
+    }
+
+    public void setSyncedUpTo(long value) {
+        requireWritable();
+        header.putLong(OFFSET_SYNCED_UP_TO, value);
+    }
+
+    /**
+     * @return zero-copy read-only view of one row's vector
+     */
+    public FloatBuffer vector(int row) {
+        MappedByteBuffer segment = segmentView[row / SEGMENT_ROWS];
+        int offset = vectorOffset(row % SEGMENT_ROWS);
+        return segment.slice(offset, rowBytes).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+    }
+
+    @Override
+    public double dot(int row, float[] query) {
+        MappedByteBuffer segment = segmentView[row / SEGMENT_ROWS];
+        int offset = vectorOffset(row % SEGMENT_ROWS);
+        double sum = 0;
+        for (int i = 0; i < dimension; i++) {
+            sum += segment.getFloat(offset + i * Float.BYTES) * query[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double dot(int rowA, int rowB) {
+        MappedByteBuffer[] view = segmentView;
+        MappedByteBuffer a = view[rowA / SEGMENT_ROWS];
+        MappedByteBuffer b = view[rowB / SEGMENT_ROWS];
+        int offsetA = vectorOffset(rowA % SEGMENT_ROWS);
+        int offsetB = vectorOffset(rowB % SEGMENT_ROWS);
+        double sum = 0;
+        for (int i = 0; i < rowBytes; i += Float.BYTES) {
+            sum += a.getFloat(offsetA + i) * b.getFloat(offsetB + i);
+        }
+        return sum;
+    }
+
+    /**
+     * Stores the L2-normalized vector for an id, appending a row and
+     * tombstoning the previous one. Unchanged vectors keep their row.
+     *
+     * @return the row now holding the id's vector
+     */
+    public int put(long id, float[] vector) throws IOException {
+        lock.lock();
+        try {
+            requireWritable();
+            float[] normalized = normalize(vector);
+            Integer existing = rowById.get(id);
+            if (existing != null && sameVector(existing, normalized)) {
+                return existing;
+            }
+            int row = append(id, normalized);
+            if (existing != null) {
+                writeRowId(existing, TOMBSTONE);
+            }
+            return row;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean remove(long id) {
+        lock.lock();
+        try {
+            requireWritable();
+            Integer existing = rowById.remove(id);
+            if (existing == null) {
+                return false;
+            }
+            writeRowId(existing, TOMBSTONE);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes written rows and the header to disk.
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            requireWritable();
+            segments.forEach(MappedByteBuffer::force);
+            header.force();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rewrites the live rows into a fresh file that atomically replaces this
+     * one. This store is retired: it stays readable for in-flight searches but
+     * rows are renumbered, so callers must switch to the returned store.
+     */
+    public MappedEmbeddingStore compact() throws IOException {
+        lock.lock();
+        try {
+            requireWritable();
+            Path target = directory.resolve(COMPACT_FILE);
+            Files.deleteIfExists(target);
+            create(target, dimension);
+            MappedEmbeddingStore compacted = map(directory, target, dimension, writerLock);
+            try {
+                for (int row = 0; row < rowCount; row++) {
+                    long id = readRowId(row);
+                    if (id != TOMBSTONE) {
+                        compacted.appendRaw(id, this, row);
+                    }
+                }
+                compacted.setSyncedUpTo(syncedUpTo());
+                compacted.flush();
+                header.putInt(OFFSET_STATE, STATE_RETIRED);
+                header.force();
+                Files.move(target, directory.resolve(DATA_FILE),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException | RuntimeException e) {
+                compacted.channel.close();
+                Files.deleteIfExists(target);
+                throw e;
+            }
+            channel.close();
+            return compacted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Picks up rows appended and tombstoned by the writer process.
+     *
+     * @return false once the writer has compacted the file; reopen the store
+     */
+    public boolean refresh() throws IOException {
+        lock.lock();
+        try {
+            if (header.getInt(OFFSET_STATE) == STATE_RETIRED) {
+                return false;
+            }
+            int rows = header.getInt(OFFSET_ROW_COUNT);
+            mapSegments(rows);
+            Map<Long, Integer> current = new HashMap<>();
+            for (int row = 0; row < rows; row++) {
+                long id = readRowId(row);
+                if (id != TOMBSTONE) {
+                    current.put(id, row);
+                }
+            }
+            rowById.keySet().retainAll(current.keySet());
+            rowById.putAll(current);
+            rowCount = rows;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        if (writerLock != null) {
+            writerLock.channel().close();
+        }
+    }
+
+    private int append(long id, float[] normalized) throws IOException {
+        int row = rowCount;
+        mapSegments(row + 1);
+        MappedByteBuffer segment = segments.get(row / SEGMENT_ROWS);
+        int offset = vectorOffset(row % SEGMENT_ROWS);
+        for (int i = 0; i < dimension; i++) {
+            segment.putFloat(offset + i * Float.BYTES, normalized[i]);
+        }
+        return commit(id, row);
+    }
+
+    private void appendRaw(long id, MappedEmbeddingStore source, int sourceRow) throws IOException {
+        int row = rowCount;
+        mapSegments(row + 1);
+        MappedByteBuffer segment = segments.get(row / SEGMENT_ROWS);
+        segment.put(vectorOffset(row % SEGMENT_ROWS),
+                source.segments.get(sourceRow / SEGMENT_ROWS), vectorOffset(sourceRow % SEGMENT_ROWS), rowBytes);
+        commit(id, row);
+    }
+
+    // The row count is bumped last so readers never count a half-written row
+    private int commit(long id, int row) {
+        writeRowId(row, id);
+        rowById.put(id, row);
+        rowCount = row + 1;
+        header.putInt(OFFSET_ROW_COUNT, rowCount);
+        return row;
+    }
+
+    private void mapSegments(int rows) throws IOException {
+        int needed = (rows + SEGMENT_ROWS - 1) / SEGMENT_ROWS;
+        if (needed <= segments.size()) {
+            return;
+        }
+        FileChannel.MapMode mode = isWritable() ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        while (segments.size() < needed) {
+            MappedByteBuffer segment = channel.map(mode, HEADER_BYTES + segments.size() * segmentBytes, segmentBytes);
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+            segments.add(segment);
+        }
+        segmentView = segments.toArray(MappedByteBuffer[]::new);
+    }
+
+    private boolean sameVector(int row, float[] vector) {
+        MappedByteBuffer segment = segments.get(row / SEGMENT_ROWS);
+        int offset = vectorOffset(row % SEGMENT_ROWS);
+        for (int i = 0; i < dimension; i++) {
+            if (Float.compare(segment.getFloat(offset + i * Float.BYTES), vector[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long readRowId(int row) {
+        return segments.get(row / SEGMENT_ROWS).getLong((row % SEGMENT_ROWS) * Long.BYTES);
+    }
+
+    private void writeRowId(int row, long id) {
+        segments.get(row / SEGMENT_ROWS).putLong((row % SEGMENT_ROWS) * Long.BYTES, id);
+    }
+
+    // Computed in long so a bad row number fails loudly instead of wrapping to another row's bytes
+    private int vectorOffset(int rowInSegment) {
+        return Math.toIntExact((long) SEGMENT_ROWS * Long.BYTES + (long) rowInSegment * rowBytes);
+    }
+
+    private float[] normalize(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Expected a " + dimension + "-d vector, got " + vector.length);
+        }
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        if (norm == 0) {
+            throw new IllegalArgumentException("Vector must not be all zeros");
+        }
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    private void requireWritable() {
+        if (!isWritable()) {
+            throw new IllegalStateException("Embedding store at " + directory + " is open read-only");
+        }
+    }
+
+    private static FileLock tryLock(Path lockFile) throws IOException {
+        FileChannel lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            FileLock lock = lockChannel.tryLock();
+            if (lock != null) {
+                return lock;
+            }
+        } catch (OverlappingFileLockException e) {
+            // Already held within this JVM
+        }
+        lockChannel.close();
+        return null;
+    }
+
+    private static void create(Path file, int dimension) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(OFFSET_MAGIC, MAGIC);
+            header.putInt(OFFSET_VERSION, FORMAT_VERSION);
+            header.putInt(OFFSET_DIMENSION, dimension);
+            header.putInt(OFFSET_STATE, STATE_ACTIVE);
+            header.putInt(OFFSET_ROW_COUNT, 0);
+            header.putLong(OFFSET_SYNCED_UP_TO, 0);
+            header.force();
+        }
+    }
+
+    /**
+     * @return the mapped store, or null if a writer finds no usable file
+     */
+    private static MappedEmbeddingStore map(Path directory, Path file, int dimension, FileLock lock) throws IOException {
+        boolean writable = lock != null;
+        if (writable && (!Files.exists(file) || Files.size(file) < HEADER_BYTES)) {
+            return null;
+        }
+        FileChannel channel = writable
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer header = channel.map(
+                    writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            String problem = header.getInt(OFFSET_MAGIC) != MAGIC ? "not an embedding store"
+                    : header.getInt(OFFSET_VERSION) != FORMAT_VERSION ? "unsupported format version"
+                    : header.getInt(OFFSET_DIMENSION) != dimension ? "dimension " + header.getInt(OFFSET_DIMENSION)
+                    : header.getInt(OFFSET_STATE) != STATE_ACTIVE ? "retired by compaction"
+                    : null;
+            if (problem != null) {
+                channel.close();
+                if (writable) {
+                    return null;
+                }
+                throw new IOException("Cannot open embedding store " + file + ": " + problem);
+            }
+            MappedEmbeddingStore store = new MappedEmbeddingStore(directory, dimension, channel, lock, header);
+            store.refresh();
+            return store;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.visualai.backend.search;
+
+import com.visualai.backend.dto.FacetSearchResultDTO;
+import com.visualai.backend.dto.ProductDTO;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Facet engine over the catalog. Every product gets a dense ordinal, and every
+ * facet value keeps a compressed bitmap of the ordinals that carry it. A filter
+ * is an OR of the selected values within a facet and an AND across facets; the
+ * count for each facet value is computed against the other facets' selections,
+ * so shoppers still see how many results picking another value would give.
+ *
+ * Ordinals freed by removals are handed to the next added product, so the
+ * ordinal table stays as large as the catalog under churn.
+ */
+@Component
+public class ProductFacetIndex implements ProductIndex {
+
+    public static final String CATEGORY = "category";
+    public static final String IN_STOCK = "inStock";
+    public static final String PRICE = "price";
+    public static final String RATING = "rating";
+    public static final String COLOR = "color";
+    public static final String SIZE = "size";
+    public static final List<String> FACETS = List.of(CATEGORY, IN_STOCK, PRICE, RATING, COLOR, SIZE);
+
+    // Price buckets are [lower, upper); the last one is open-ended
+    private static final double[] PRICE_BOUNDS = {0, 50, 100, 200, 500};
+    // Rating buckets are cumulative ("4-up" also contains every "4.5-up" product)
+    private static final double[] RATING_THRESHOLDS = {4.5, 4, 3};
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Map<String, RoaringBitmap>> facets = new HashMap<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final List<ProductDTO> products = new ArrayList<>();
+    private final RoaringBitmap live = new RoaringBitmap();
+
+    @Override
+    public void rebuild(Collection<ProductDTO> catalog) {
+        lock.writeLock().lock();
+        try {
+            facets.clear();
+            ordinals.clear();
+            products.clear();
+            live.clear();
+            catalog.forEach(this::add);
+            facets.values().forEach(values -> values.values().forEach(RoaringBitmap::runOptimize));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void upsert(ProductDTO product) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(product.getId());
+            if (ordinal == null) {
+                add(product);
+            } else {
+                unindex(ordinal);
+                products.set(ordinal, product);
+                index(ordinal, product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(productId);
+            if (ordinal != null) {
+                unindex(ordinal);
+                products.set(ordinal, null);
+                live.remove(ordinal);
+                // Free slots at the end are dropped; the rest wait to be reused by add()
+                while (!products.isEmpty() && products.get(products.size() - 1) == null) {
+                    products.remove(products.size() - 1);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param selections facet name to the accepted values of that facet; facets
+     *                   that are absent or empty do not constrain the result
+     */
+    public FacetSearchResultDTO filter(Map<String, List<String>> selections, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            Map<String, RoaringBitmap> facetMatches = selectedValues(selections);
+
+            RoaringBitmap matches = intersectAllExcept(facetMatches, null);
+
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            for (String facet : FACETS) {
+                Map<String, RoaringBitmap> values = facets.getOrDefault(facet, Map.of());
+                RoaringBitmap base = facetMatches.containsKey(facet) ? intersectAllExcept(facetMatches, facet) : matches;
+                Map<String, Integer> facetCounts = new TreeMap<>();
+                values.forEach((value, bitmap) ->
+                        facetCounts.put(value, RoaringBitmap.andCardinality(base, bitmap)));
+                counts.put(facet, facetCounts);
+            }
+
+            List<ProductDTO> page = new ArrayList<>();
+            IntIterator it = matches.getIntIterator();
+            int skipped = 0;
+            while (it.hasNext() && page.size() < limit) {
+                int ordinal = it.next();
+                if (skipped++ >= offset) {
+                    page.add(products.get(ordinal));
+                }
+            }
+
+            return FacetSearchResultDTO.builder()
+                    .total(matches.getCardinality())
+                    .products(page)
+                    .facets(counts)
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Narrows a ranked candidate list to the live products matching the
+     * selections, keeping the candidates' order.
+     */
+    public List<ProductDTO> select(List<Long> productIds, Map<String, List<String>> selections) {
+        lock.readLock().lock();
+        try {
+            Map<String, RoaringBitmap> facetMatches = selectedValues(selections);
+            RoaringBitmap matches = intersectAllExcept(facetMatches, null);
+
+            List<ProductDTO> selected = new ArrayList<>();
+            for (Long productId : productIds) {
+                Integer ordinal = ordinals.get(productId);
+                if (ordinal != null && matches.contains(ordinal)) {
+                    selected.add(products.get(ordinal));
+                }
+            }
+            return selected;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tests product ids against the selections, so a candidate generator can
+     * drop non-matching products before cutting its list. The selections are
+     * resolved once, so a product added into a freed ordinal meanwhile may be
+     * misjudged; {@link #select} remains the final filter.
+     */
+    public Predicate<Long> matcher(Map<String, List<String>> selections) {
+        RoaringBitmap matches;
+        lock.readLock().lock();
+        try {
+            Map<String, RoaringBitmap> facetMatches = selectedValues(selections);
+            if (facetMatches.isEmpty()) {
+                return productId -> true;
+            }
+            matches = intersectAllExcept(facetMatches, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return productId -> {
+            lock.readLock().lock();
+            try {
+                Integer ordinal = ordinals.get(productId);
+                return ordinal != null && matches.contains(ordinal);
+            } finally {
+                lock.readLock().unlock();
+            }
+        };
+    }
+
+    // Size of the ordinal table, including slots freed and not yet reused
+    int ordinalCount() {
+        lock.readLock().lock();
+        try {
+            return products.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Per constrained facet, the union of its selected values' bitmaps
+    private Map<String, RoaringBitmap> selectedValues(Map<String, List<String>> selections) {
+        Map<String, RoaringBitmap> facetMatches = new HashMap<>();
+        selections.forEach((facet, values) -> {
+            if (facets.containsKey(facet) && values != null && !values.isEmpty()) {
+                facetMatches.put(facet, union(facets.get(facet), values));
+            }
+        });
+        return facetMatches;
+    }
+
+    private RoaringBitmap intersectAllExcept(Map<String, RoaringBitmap> facetMatches, String excluded) {
+        RoaringBitmap result = live.clone();
+        facetMatches.forEach((facet, bitmap) -> {
+            if (!facet.equals(excluded)) {
+                result.and(bitmap);
+            }
+        });
+        return result;
+    }
+
+    private static RoaringBitmap union(Map<String, RoaringBitmap> values, List<String> selected) {
+        RoaringBitmap result = new RoaringBitmap();
+        for (String value : selected) {
+            RoaringBitmap bitmap = values.get(value);
+            if (bitmap != null) {
+                result.or(bitmap);
+            }
+        }
+        return result;
+    }
+
+    private void add(ProductDTO product) {
+        // The lowest ordinal no live product holds; past the end when there is no gap
+        int ordinal = (int) live.nextAbsentValue(0);
+        if (ordinal < products.size()) {
+            products.set(ordinal, product);
+        } else {
+            products.add(product);
+        }
+        ordinals.put(product.getId(), ordinal);
+        live.add(ordinal);
+        index(ordinal, product);
+    }
+
+    private void index(int ordinal, ProductDTO product) {
+        facetValues(product).forEach((facet, values) -> values.forEach(value ->
+                facets.computeIfAbsent(facet, f -> new HashMap<>())
+                        .computeIfAbsent(value, v -> new RoaringBitmap())
+                        .add(ordinal)));
+    }
+
+    private void unindex(int ordinal) {
+        facetValues(products.get(ordinal)).forEach((facet, values) -> {
+            Map<String, RoaringBitmap> facetBitmaps = facets.get(facet);
+            for (String value : values) {
+                RoaringBitmap bitmap = facetBitmaps.get(value);
+                bitmap.remove(ordinal);
+                if (bitmap.isEmpty()) {
+                    facetBitmaps.remove(value);
+                }
+            }
+        });
+    }
+
+    private static Map<String, Collection<String>> facetValues(ProductDTO product) {
+        Map<String, Collection<String>> values = new HashMap<>();
+        if (product.getCategory() != null) {
+            values.put(CATEGORY, List.of(product.getCategory()));
+        }
+        values.put(IN_STOCK, List.of(String.valueOf(Boolean.TRUE.equals(product.getInStock()))));
+        if (product.getPrice() != null) {
+            values.put(PRICE, List.of(priceBucket(product.getPrice())));
+        }
+        if (product.getRating() != null) {
+            List<String> ratings = new ArrayList<>();
+            for (double threshold : RATING_THRESHOLDS) {
+                if (product.getRating() >= threshold) {
+                    ratings.add(formatBound(threshold) + "-up");
+                }
+            }
+            values.put(RATING, ratings);
+        }
+        if (product.getColors() != null) {
+            values.put(COLOR, new HashSet<>(product.getColors()));
+        }
+        if (product.getSizes() != null) {
+            values.put(SIZE, new HashSet<>(product.getSizes()));
+        }
+        return values;
+    }
+
+    static String priceBucket(double price) {
+        for (int i = PRICE_BOUNDS.length - 1; i > 0; i--) {
+            if (price >= PRICE_BOUNDS[i]) {
+                return i == PRICE_BOUNDS.length - 1
+                        ? formatBound(PRICE_BOUNDS[i]) + "-up"
+                        : formatBound(PRICE_BOUNDS[i]) + "-" + formatBound(PRICE_BOUNDS[i + 1]);
+            }
+        }
+        return formatBound(PRICE_BOUNDS[0]) + "-" + formatBound(PRICE_BOUNDS[1]);
+    }
+
+    private static String formatBound(double bound) {
+        return bound == Math.floor(bound) ? String.valueOf((long) bound) : String.valueOf(bound);
+    }
+}
@@ -0,0 +1,18 @@
+package com.visualai.backend.search;
+
+import com.visualai.backend.dto.ProductDTO;
+
+import java.util.Collection;
+
+/**
+ * An in-memory view over the product catalog. Implementations are discovered as
+ * beans, built once at startup and then kept current as products are written.
+ */
+public interface ProductIndex {
+
+    void rebuild(Collection<ProductDTO> products);
+
+    void upsert(ProductDTO product);
+
+    void remove(Long productId);
+}
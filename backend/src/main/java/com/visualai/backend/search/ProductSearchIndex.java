@@ -0,0 +1,186 @@
+package com.visualai.backend.search;
+
+import com.visualai.backend.dto.ProductDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Tokenized inverted index over product name and description, ranked with BM25.
+ * Name matches are boosted over description matches, and the last query term is
+ * treated as a prefix so the search box can query on every keystroke.
+ */
+@Component
+public class ProductSearchIndex implements ProductIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double NAME_BOOST = 3.0;
+    private static final double DESCRIPTION_BOOST = 1.0;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Map<Long, Posting>> postings = new TreeMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private long totalNameLength;
+    private long totalDescriptionLength;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void rebuild(Collection<ProductDTO> products) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalNameLength = 0;
+            totalDescriptionLength = 0;
+            products.forEach(this::addDocument);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void upsert(ProductDTO product) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getId());
+            addDocument(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<ProductDTO> search(String query, int limit) {
+        return search(query, limit, id -> true);
+    }
+
+    /**
+     * As {@link #search(String, int)}, keeping only products whose id passes
+     * {@code filter}; the filter is applied before the limit, so a narrow one
+     * still gets up to {@code limit} results.
+     */
+    public List<ProductDTO> search(String query, int limit, Predicate<Long> filter) {
+        List<String> terms = TextTokenizer.tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (documentCount == 0) {
+                return List.of();
+            }
+            double avgNameLength = Math.max(1.0, (double) totalNameLength / documentCount);
+            double avgDescriptionLength = Math.max(1.0, (double) totalDescriptionLength / documentCount);
+
+            Map<Long, Double> scores = new HashMap<>();
+            for (int i = 0; i < terms.size(); i++) {
+                boolean prefix = i == terms.size() - 1;
+                // Prefix expansions of the same query term compete; only the best one counts
+                Map<Long, Double> termScores = new HashMap<>();
+                for (Map<Long, Posting> docs : matchingPostings(terms.get(i), prefix)) {
+                    double idf = Math.log(1 + (documentCount - docs.size() + 0.5) / (docs.size() + 0.5));
+                    docs.forEach((id, posting) -> {
+                        Document doc = documents.get(id);
+                        double score = idf * (
+                                NAME_BOOST * saturate(posting.nameFrequency, doc.nameLength(), avgNameLength)
+                                        + DESCRIPTION_BOOST * saturate(posting.descriptionFrequency,
+                                        doc.descriptionLength(), avgDescriptionLength));
+                        termScores.merge(id, score, Math::max);
+                    });
+                }
+                termScores.forEach((id, score) -> scores.merge(id, score, Double::sum));
+            }
+
+            return scores.entrySet().stream()
+                    .filter(entry -> filter.test(entry.getKey()))
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limit)
+                    .map(entry -> documents.get(entry.getKey()).product())
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Collection<Map<Long, Posting>> matchingPostings(String term, boolean prefix) {
+        if (!prefix) {
+            Map<Long, Posting> docs = postings.get(term);
+            return docs == null ? List.of() : List.of(docs);
+        }
+        // Most common expansions first, so a short prefix keeps the terms that match the most products
+        return postings.subMap(term, true, term + Character.MAX_VALUE, false).values().stream()
+                .sorted(Comparator.comparingInt((Map<Long, Posting> docs) -> docs.size()).reversed())
+                .limit(MAX_PREFIX_EXPANSIONS)
+                .toList();
+    }
+
+    private static double saturate(int frequency, int length, double avgLength) {
+        if (frequency == 0) {
+            return 0;
+        }
+        return frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / avgLength));
+    }
+
+    private void addDocument(ProductDTO product) {
+        List<String> nameTerms = TextTokenizer.tokenize(product.getName());
+        List<String> descriptionTerms = TextTokenizer.tokenize(product.getDescription());
+
+        Map<String, Posting> local = new HashMap<>();
+        nameTerms.forEach(term -> local.computeIfAbsent(term, t -> new Posting()).nameFrequency++);
+        descriptionTerms.forEach(term -> local.computeIfAbsent(term, t -> new Posting()).descriptionFrequency++);
+        local.forEach((term, posting) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(product.getId(), posting));
+
+        documents.put(product.getId(),
+                new Document(product, nameTerms.size(), descriptionTerms.size(), local.keySet()));
+        totalNameLength += nameTerms.size();
+        totalDescriptionLength += descriptionTerms.size();
+    }
+
+    private void removeDocument(Long productId) {
+        Document doc = documents.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        for (String term : doc.terms()) {
+            Map<Long, Posting> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(productId);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalNameLength -= doc.nameLength();
+        totalDescriptionLength -= doc.descriptionLength();
+    }
+
+    private static final class Posting {
+        int nameFrequency;
+        int descriptionFrequency;
+    }
+
+    private record Document(ProductDTO product, int nameLength, int descriptionLength, Set<String> terms) {
+    }
+}
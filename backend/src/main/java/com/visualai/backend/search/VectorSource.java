@@ -0,0 +1,14 @@
+package com.visualai.backend.search;
+
+/**
+ * Row-addressed storage of unit-length vectors that similarity can be computed
+ * against without copying the vectors onto the heap.
+ */
+public interface VectorSource {
+
+    int dimension();
+
+    double dot(int row, float[] query);
+
+    double dot(int rowA, int rowB);
+}
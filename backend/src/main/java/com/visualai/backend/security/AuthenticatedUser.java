@@ -0,0 +1,16 @@
+package com.visualai.backend.security;
+
+import com.visualai.backend.entity.User;
+
+/**
+ * The security principal: an immutable snapshot of the user taken when the
+ * token is authenticated. It is what {@link PrincipalCache} holds, so cached
+ * principals shared across requests carry no password hash and no managed
+ * entity state.
+ */
+public record AuthenticatedUser(Long id, String name, String email, String role) {
+
+    public static AuthenticatedUser of(User user) {
+        return new AuthenticatedUser(user.getId(), user.getName(), user.getEmail(), user.getRole());
+    }
+}
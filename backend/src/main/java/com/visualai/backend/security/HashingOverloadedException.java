@@ -0,0 +1,10 @@
+package com.visualai.backend.security;
+
+/**
+ * Thrown when the password hashing pool is saturated and a request is shed.
+ */
+public class HashingOverloadedException extends RuntimeException {
+    public HashingOverloadedException() {
+        super("Too many authentication requests, please retry shortly");
+    }
+}
@@ -1,6 +1,5 @@
 package com.visualai.backend.security;
 
-import com.visualai.backend.entity.User;
 import com.visualai.backend.repository.UserRepository;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -22,6 +21,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -34,18 +34,18 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
 
-            if (jwtUtil.validateToken(token)) {
-                String email = jwtUtil.getEmailFromToken(token);
-                User user = userRepository.findByEmail(email).orElse(null);
+            jwtUtil.parseClaims(token).ifPresent(claims -> {
+                AuthenticatedUser principal = principalCache.get(claims.getSubject(),
+                        email -> userRepository.findByEmail(email).map(AuthenticatedUser::of).orElse(null));
 
-                if (user != null) {
+                if (principal != null) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            user,
+                            principal,
                             null,
-                            List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole())));
+                            List.of(new SimpleGrantedAuthority("ROLE_" + principal.role())));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
-            }
+            });
         }
 
         filterChain.doFilter(request, response);
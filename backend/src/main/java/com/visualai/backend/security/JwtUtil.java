@@ -8,17 +8,21 @@ import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.Optional;
 
 @Component
 public class JwtUtil {
 
     private final SecretKey key;
+    private final JwtParser parser;
     private final long expirationMs;
 
     public JwtUtil(
             @Value("${jwt.secret:mySecretKey1234567890AbCdEfGhIjKlMnOpQrStUvWxYz}") String secret,
             @Value("${jwt.expiration:86400000}") long expirationMs) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        // The built parser is immutable and thread-safe, so build it once
+        this.parser = Jwts.parser().verifyWith(key).build();
         this.expirationMs = expirationMs;
     }
 
@@ -45,11 +49,19 @@ public class JwtUtil {
         }
     }
 
+    /**
+     * Verifies the token and returns its claims in a single parse, or empty if
+     * the signature, expiry or format is invalid.
+     */
+    public Optional<Claims> parseClaims(String token) {
+        try {
+            return Optional.of(getClaims(token));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
     private Claims getClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 }
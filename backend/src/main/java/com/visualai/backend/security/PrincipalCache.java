@@ -0,0 +1,74 @@
+package com.visualai.backend.security;
+
+import com.visualai.backend.event.UserChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-based cache of authenticated principals keyed by JWT subject
+ * (email), so the auth filter does not hit MySQL on every request. Entries for a
+ * user are dropped as soon as that user is updated or deleted.
+ */
+@Component
+public class PrincipalCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    public PrincipalCache(
+            @Value("${security.principal-cache.ttl-ms:60000}") long ttlMillis,
+            @Value("${security.principal-cache.max-entries:10000}") int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    public AuthenticatedUser get(String subject, Function<String, AuthenticatedUser> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(subject);
+        if (entry != null && entry.expiresAt() > now) {
+            return entry.principal();
+        }
+
+        AuthenticatedUser principal = loader.apply(subject);
+        if (principal == null) {
+            entries.remove(subject);
+            return null;
+        }
+        if (entries.size() >= maxEntries) {
+            makeRoom(now);
+        }
+        entries.put(subject, new Entry(principal, now + ttlMillis));
+        return principal;
+    }
+
+    public void evict(String subject) {
+        entries.remove(subject);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        Long id = event.getUser().getId();
+        // Match by id as well: the email (cache key) may be what changed
+        entries.values().removeIf(entry -> entry.principal().id().equals(id));
+        evict(event.getUser().getEmail());
+    }
+
+    private void makeRoom(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt() <= now);
+        Iterator<String> keys = entries.keySet().iterator();
+        while (entries.size() >= maxEntries && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private record Entry(AuthenticatedUser principal, long expiresAt) {
+    }
+}
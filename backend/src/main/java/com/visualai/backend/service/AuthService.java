@@ -6,55 +6,70 @@ import com.visualai.backend.dto.RegisterRequest;
 import com.visualai.backend.entity.User;
 import com.visualai.backend.repository.UserRepository;
 import com.visualai.backend.security.JwtUtil;
-import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import com.visualai.backend.security.PasswordHasher;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 @Service
-@RequiredArgsConstructor
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtUtil jwtUtil;
+    private final Executor taskExecutor;
+
+    public AuthService(UserRepository userRepository, PasswordHasher passwordHasher, JwtUtil jwtUtil,
+            @Qualifier("applicationTaskExecutor") Executor taskExecutor) {
+        this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+        this.jwtUtil = jwtUtil;
+        this.taskExecutor = taskExecutor;
+    }
 
-    public AuthResponse register(RegisterRequest request) {
+    // The insert runs on the application task executor, so a hashing thread is
+    // freed as soon as the hash is done rather than held through the commit
+    public CompletableFuture<AuthResponse> register(RegisterRequest request) {
         // Check if email already exists
         if (userRepository.existsByEmail(request.getEmail())) {
-            throw new RuntimeException("Email already registered");
+            return CompletableFuture.failedFuture(new RuntimeException("Email already registered"));
         }
 
         // Create user with hashed password
-        User user = User.builder()
-                .name(request.getName())
-                .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
-                .role("USER")
-                .build();
-
-        userRepository.save(user);
+        return passwordHasher.encode(request.getPassword()).thenApplyAsync(hash -> {
+            User user = User.builder()
+                    .name(request.getName())
+                    .email(request.getEmail())
+                    .password(hash)
+                    .role("USER")
+                    .build();
 
-        // Generate JWT token
-        String token = jwtUtil.generateToken(user.getEmail(), user.getRole());
-
-        return AuthResponse.builder()
-                .token(token)
-                .name(user.getName())
-                .email(user.getEmail())
-                .role(user.getRole())
-                .build();
+            userRepository.save(user);
+            return toResponse(user);
+        }, taskExecutor);
     }
 
-    public AuthResponse login(LoginRequest request) {
+    public CompletableFuture<AuthResponse> login(LoginRequest request) {
         // Find user by email
-        User user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new RuntimeException("Invalid email or password"));
+        Optional<User> found = userRepository.findByEmail(request.getEmail());
+        if (found.isEmpty()) {
+            return CompletableFuture.failedFuture(new RuntimeException("Invalid email or password"));
+        }
+        User user = found.get();
 
         // Verify password
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-            throw new RuntimeException("Invalid email or password");
-        }
+        return passwordHasher.matches(request.getPassword(), user.getPassword()).thenApply(matches -> {
+            if (!matches) {
+                throw new RuntimeException("Invalid email or password");
+            }
+            return toResponse(user);
+        });
+    }
 
+    private AuthResponse toResponse(User user) {
         // Generate JWT token
         String token = jwtUtil.generateToken(user.getEmail(), user.getRole());
 
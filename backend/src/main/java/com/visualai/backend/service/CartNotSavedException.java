@@ -0,0 +1,11 @@
+package com.visualai.backend.service;
+
+/**
+ * Thrown when bulk cart changes could not be written; the cart has been put
+ * back as it was, so the client can safely retry.
+ */
+public class CartNotSavedException extends RuntimeException {
+    public CartNotSavedException(Throwable cause) {
+        super("Cart changes could not be saved; the cart is unchanged", cause);
+    }
+}
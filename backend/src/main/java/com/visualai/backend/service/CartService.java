@@ -1,102 +1,178 @@
 package com.visualai.backend.service;
 
+import com.visualai.backend.cache.CachedView;
+import com.visualai.backend.cache.CartStore;
+import com.visualai.backend.cache.CartStore.CartLine;
+import com.visualai.backend.cache.CatalogCache;
+import com.visualai.backend.dto.CartBulkRequest;
 import com.visualai.backend.dto.CartItemDTO;
 import com.visualai.backend.dto.CartItemRequest;
-import com.visualai.backend.entity.CartItem;
-import com.visualai.backend.entity.Product;
-import com.visualai.backend.entity.User;
-import com.visualai.backend.repository.CartRepository;
-import com.visualai.backend.repository.ProductRepository;
-import jakarta.transaction.Transactional;
+import com.visualai.backend.dto.ProductDTO;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * Cart operations against the in-memory {@link CartStore}; cart_items is only
+ * written by the store's flushes.
+ */
 @Service
 @RequiredArgsConstructor
 public class CartService {
 
-    private final CartRepository cartRepository;
-    private final ProductRepository productRepository;
+    private final CartStore cartStore;
+    private final CatalogCache catalogCache;
 
-    public List<CartItemDTO> getCartItems(User user) {
-        return cartRepository.findByUser(user).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+    public List<CartItemDTO> getCartItems(Long userId) {
+        List<CartLine> lines = cartStore.getLines(userId);
+        Map<Long, ProductDTO> products = catalogCache.getProductsByIds(
+                        lines.stream().map(CartLine::productId).toList()).stream()
+                .collect(Collectors.toMap(ProductDTO::getId, Function.identity()));
+        List<CartItemDTO> items = new ArrayList<>();
+        for (CartLine line : lines) {
+            ProductDTO product = products.get(line.productId());
+            // Lines for products deleted since they were added are not shown
+            if (product != null) {
+                items.add(toDTO(line, product));
+            }
+        }
+        return items;
     }
 
-    @Transactional
-    public CartItemDTO addToCart(User user, CartItemRequest request) {
-        Product product = productRepository.findById(request.getProductId())
+    public CartItemDTO addToCart(Long userId, CartItemRequest request) {
+        ProductDTO product = findProduct(request.getProductId())
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
-        // Check if item already in cart
-        CartItem cartItem = cartRepository.findByUserAndProductId(user, request.getProductId())
-                .orElse(null);
+        CartLine line = cartStore.update(userId, lines -> {
+            CartLine existing = lines.get(product.getId());
+            CartLine updated;
+            if (existing != null) {
+                // Update quantity
+                updated = new CartLine(existing.id(), product.getId(),
+                        existing.quantity() + request.getQuantity(),
+                        request.getSelectedColor() != null ? request.getSelectedColor() : existing.selectedColor(),
+                        request.getSelectedSize() != null ? request.getSelectedSize() : existing.selectedSize());
+            } else {
+                updated = new CartLine(null, product.getId(), request.getQuantity(),
+                        request.getSelectedColor(), request.getSelectedSize());
+            }
+            lines.put(product.getId(), updated);
+            return updated;
+        });
+        return toDTO(line, product);
+    }
 
-        if (cartItem != null) {
-            // Update quantity
-            cartItem.setQuantity(cartItem.getQuantity() + request.getQuantity());
-            if (request.getSelectedColor() != null)
-                cartItem.setSelectedColor(request.getSelectedColor());
-            if (request.getSelectedSize() != null)
-                cartItem.setSelectedSize(request.getSelectedSize());
-        } else {
-            // Create new cart item
-            cartItem = CartItem.builder()
-                    .user(user)
-                    .product(product)
-                    .quantity(request.getQuantity())
-                    .selectedColor(request.getSelectedColor())
-                    .selectedSize(request.getSelectedSize())
-                    .build();
+    public CartItemDTO updateQuantity(Long userId, Long productId, int quantity) {
+        CartLine line = cartStore.update(userId, lines -> {
+            CartLine existing = lines.get(productId);
+            if (existing == null) {
+                throw new RuntimeException("Cart item not found");
+            }
+            if (quantity <= 0) {
+                lines.remove(productId);
+                return null;
+            }
+            CartLine updated = existing.withQuantity(quantity);
+            lines.put(productId, updated);
+            return updated;
+        });
+        if (line == null) {
+            return null;
         }
-
-        cartRepository.save(cartItem);
-        return toDTO(cartItem);
+        return findProduct(productId)
+                .map(product -> toDTO(line, product))
+                .orElse(null);
     }
 
-    @Transactional
-    public CartItemDTO updateQuantity(User user, Long productId, int quantity) {
-        CartItem cartItem = cartRepository.findByUserAndProductId(user, productId)
-                .orElseThrow(() -> new RuntimeException("Cart item not found"));
+    /**
+     * Applies all deletes, then all upserts, as one change: unknown products
+     * reject the whole request before anything is modified. The result is
+     * written straight away in a single flush rather than on the next tick.
+     *
+     * @return the full cart after the changes
+     */
+    public List<CartItemDTO> applyBulk(Long userId, CartBulkRequest request) {
+        List<Long> productIds = request.getUpserts().stream()
+                .map(CartItemRequest::getProductId)
+                .distinct()
+                .toList();
+        // One IN query for whatever the catalog cache doesn't already hold
+        Set<Long> known = catalogCache.getProductsByIds(productIds).stream()
+                .map(ProductDTO::getId)
+                .collect(Collectors.toSet());
+        for (Long productId : productIds) {
+            if (!known.contains(productId)) {
+                throw new IllegalArgumentException("Product not found: " + productId);
+            }
+        }
 
-        if (quantity <= 0) {
-            cartRepository.delete(cartItem);
-            return null;
+        Map<Long, CartLine> before = cartStore.update(userId, lines -> {
+            Map<Long, CartLine> snapshot = new LinkedHashMap<>(lines);
+            request.getDeletes().forEach(lines::remove);
+            for (CartItemRequest upsert : request.getUpserts()) {
+                CartLine existing = lines.get(upsert.getProductId());
+                if (existing == null) {
+                    lines.put(upsert.getProductId(), new CartLine(null, upsert.getProductId(), upsert.getQuantity(),
+                            upsert.getSelectedColor(), upsert.getSelectedSize()));
+                    continue;
+                }
+                int quantity = request.isMerge() ? existing.quantity() + upsert.getQuantity() : upsert.getQuantity();
+                lines.put(upsert.getProductId(), new CartLine(existing.id(), upsert.getProductId(), quantity,
+                        upsert.getSelectedColor() != null ? upsert.getSelectedColor() : existing.selectedColor(),
+                        upsert.getSelectedSize() != null ? upsert.getSelectedSize() : existing.selectedSize()));
+            }
+            return snapshot;
+        });
+        try {
+            cartStore.flush(userId);
+        } catch (RuntimeException e) {
+            // All or nothing: undo the in-memory changes the failed write would have saved
+            cartStore.update(userId, lines -> {
+                lines.clear();
+                lines.putAll(before);
+                return null;
+            });
+            throw new CartNotSavedException(e);
         }
+        return getCartItems(userId);
+    }
 
-        cartItem.setQuantity(quantity);
-        cartRepository.save(cartItem);
-        return toDTO(cartItem);
+    public void removeFromCart(Long userId, Long productId) {
+        cartStore.update(userId, lines -> lines.remove(productId));
     }
 
-    @Transactional
-    public void removeFromCart(User user, Long productId) {
-        cartRepository.deleteByUserAndProductId(user, productId);
+    public void clearCart(Long userId) {
+        cartStore.update(userId, lines -> {
+            lines.clear();
+            return null;
+        });
     }
 
-    @Transactional
-    public void clearCart(User user) {
-        cartRepository.deleteByUser(user);
+    private Optional<ProductDTO> findProduct(Long productId) {
+        return catalogCache.getProductById(productId).map(CachedView::getBody);
     }
 
-    private CartItemDTO toDTO(CartItem item) {
-        Product p = item.getProduct();
+    private CartItemDTO toDTO(CartLine line, ProductDTO p) {
         return CartItemDTO.builder()
-                .id(item.getId())
+                .id(line.id())
                 .productId(p.getId())
                 .productName(p.getName())
                 .productImage(p.getImage())
                 .category(p.getCategory())
                 .price(p.getPrice())
                 .originalPrice(p.getOriginalPrice())
-                .quantity(item.getQuantity())
-                .selectedColor(item.getSelectedColor())
-                .selectedSize(item.getSelectedSize())
-                .inStock(p.getInStock())
+                .quantity(line.quantity())
+                .selectedColor(line.selectedColor())
+                .selectedSize(line.selectedSize())
+                .inStock(Boolean.TRUE.equals(p.getInStock()))
                 .build();
     }
 }
@@ -3,17 +3,28 @@ package com.visualai.backend.service;
 import com.visualai.backend.dto.CategoryDTO;
 import com.visualai.backend.entity.Category;
 import com.visualai.backend.repository.CategoryRepository;
+import com.visualai.backend.repository.ProductRepository;
+import com.visualai.backend.search.CategoryStatsIndex;
+import com.visualai.backend.search.CategoryStatsIndex.CategoryStats;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class CategoryService {
 
+    private static final CategoryStats EMPTY = new CategoryStats(0, 0, null, null);
+
     private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final CategoryStatsIndex statsIndex;
 
     public List<CategoryDTO> getAllCategories() {
         return categoryRepository.findAll().stream()
@@ -21,12 +32,52 @@ public class CategoryService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Compares the incrementally maintained stats with a GROUP BY over products
+     * and rebuilds them if they drifted, e.g. after a write that bypassed JPA.
+     */
+    @Scheduled(initialDelayString = "${category.stats.reconcile-interval-ms:600000}",
+            fixedDelayString = "${category.stats.reconcile-interval-ms:600000}")
+    public void reconcileStats() {
+        if (!statsIndex.isReady()) {
+            return;
+        }
+        // Taken before any read, so a write committing during the check is detected below
+        long version = statsIndex.version();
+        Map<String, CategoryStats> expected = new HashMap<>();
+        for (Object[] row : productRepository.aggregateByCategory()) {
+            expected.put((String) row[0], new CategoryStats(((Number) row[1]).intValue(),
+                    ((Number) row[2]).intValue(), (Double) row[3], (Double) row[4]));
+        }
+        Map<String, CategoryStats> actual = statsIndex.getStats();
+        if (actual.equals(expected)) {
+            return;
+        }
+        Set<String> drifted = new TreeSet<>(expected.keySet());
+        drifted.addAll(actual.keySet());
+        drifted.removeIf(category -> Objects.equals(expected.get(category), actual.get(category)));
+        // The products are read outside the index lock; a write applied since the
+        // version was taken may be missing from them, so skip and check again next run
+        if (statsIndex.rebuildIfUnchanged(productService.getAllProducts(), version)) {
+            log.warn("Category stats drifted for {}; rebuilt from products", drifted);
+        } else {
+            log.info("Category stats differ for {} while products are being written; checking again next run", drifted);
+        }
+    }
+
     private CategoryDTO toDTO(Category category) {
+        // Until the stats are built, fall back to the seeded count
+        CategoryStats stats = statsIndex.isReady()
+                ? statsIndex.getStats().getOrDefault(category.getName(), EMPTY)
+                : null;
         return CategoryDTO.builder()
                 .id(category.getId())
                 .name(category.getName())
                 .image(category.getImage())
-                .count(category.getCount())
+                .count(stats != null ? stats.count() : category.getCount())
+                .inStockCount(stats != null ? stats.inStockCount() : null)
+                .minPrice(stats != null ? stats.minPrice() : null)
+                .maxPrice(stats != null ? stats.maxPrice() : null)
                 .build();
     }
 }
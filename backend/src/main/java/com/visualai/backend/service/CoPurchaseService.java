@@ -0,0 +1,166 @@
+package com.visualai.backend.service;
+
+import com.visualai.backend.event.OrderPlacedEvent;
+import com.visualai.backend.repository.OrderItemRepository;
+import com.visualai.backend.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.stream.Collectors;
+
+/**
+ * "Frequently bought together" engine: a sparse product-to-product
+ * co-occurrence graph updated as each order commits.
+ *
+ * Counts decay exponentially with a configurable half-life. Rather than
+ * rescaling every edge over time, each purchase is added with weight
+ * 2^((t - epoch) / halfLife); all edges then share the same decay factor at
+ * read time, so ranking uses the stored values directly. Writes to a
+ * product's edges go through the graph's per-key compute, so an order and the
+ * pruner never interleave on the same product; reads take no lock.
+ */
+@Slf4j
+@Service
+public class CoPurchaseService {
+
+    // Larger orders add little signal per pair and cost O(n^2) edges
+    private static final int MAX_PRODUCTS_PER_ORDER = 50;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    // Upper bound on k, which comes straight from a query parameter
+    private static final int MAX_COMPLEMENTS = 50;
+    // Edges whose decayed weight falls below this are pruned
+    private static final double PRUNE_THRESHOLD = 0.05;
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final double halfLifeSeconds;
+    private final long epochSeconds = System.currentTimeMillis() / 1000;
+
+    private final Map<Long, Map<Long, DoubleAdder>> graph = new ConcurrentHashMap<>();
+    // Orders applied live while the history replay runs, so the replay can skip them
+    private final Set<Long> recordedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding;
+
+    public CoPurchaseService(OrderRepository orderRepository,
+            OrderItemRepository orderItemRepository,
+            @Value("${copurchase.half-life-days:30}") double halfLifeDays) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.halfLifeSeconds = halfLifeDays * 24 * 3600;
+    }
+
+    /**
+     * Top-K complements for a product, best first, with their current decayed
+     * weight. k is clamped to [1, 50].
+     */
+    public LinkedHashMap<Long, Double> topComplements(Long productId, int k) {
+        Map<Long, DoubleAdder> partners = graph.getOrDefault(productId, Map.of());
+        double decay = currentDecay();
+        return partners.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(Math.max(1, Math.min(k, MAX_COMPLEMENTS)))
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue() * decay,
+                        (a, b) -> a, LinkedHashMap::new));
+    }
+
+    @TransactionalEventListener
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        if (rebuilding) {
+            recordedDuringRebuild.add(event.getOrderId());
+        }
+        record(event.getProductIds(), event.getPlacedAt());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildInBackground() {
+        Thread thread = new Thread(this::rebuild, "co-purchase-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Scheduled(fixedDelayString = "${copurchase.prune-interval-ms:3600000}")
+    public void prune() {
+        double threshold = PRUNE_THRESHOLD / currentDecay();
+        for (Long productId : graph.keySet()) {
+            // Atomic with record(): an edge or partner map can't be dropped while an order adds to it
+            graph.computeIfPresent(productId, (id, partners) -> {
+                partners.values().removeIf(weight -> weight.sum() < threshold);
+                return partners.isEmpty() ? null : partners;
+            });
+        }
+    }
+
+    void rebuild() {
+        rebuilding = true;
+        long start = System.currentTimeMillis();
+        int replayed = 0;
+        try {
+            Long maxId = orderRepository.findMaxId();
+            long afterId = 0;
+            while (maxId != null) {
+                List<Object[]> keys = orderRepository.findOrderKeys(afterId, maxId, PageRequest.ofSize(REBUILD_BATCH_SIZE));
+                if (keys.isEmpty()) {
+                    break;
+                }
+                Map<Long, LocalDateTime> placedAt = new HashMap<>();
+                keys.forEach(row -> placedAt.put((Long) row[0], (LocalDateTime) row[1]));
+                afterId = (Long) keys.get(keys.size() - 1)[0];
+
+                Map<Long, List<Long>> itemsByOrder = new HashMap<>();
+                for (Object[] row : orderItemRepository.findProductIdsByOrderIds(placedAt.keySet())) {
+                    itemsByOrder.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((Long) row[1]);
+                }
+                for (Map.Entry<Long, List<Long>> order : itemsByOrder.entrySet()) {
+                    if (!recordedDuringRebuild.contains(order.getKey())) {
+                        record(order.getValue(), placedAt.get(order.getKey()));
+                        replayed++;
+                    }
+                }
+            }
+            log.info("Co-purchase graph rebuilt from {} orders ({} products) in {} ms",
+                    replayed, graph.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("Co-purchase rebuild failed; serving live orders only", e);
+        } finally {
+            rebuilding = false;
+            recordedDuringRebuild.clear();
+        }
+    }
+
+    private void record(List<Long> productIds, LocalDateTime placedAt) {
+        List<Long> distinct = productIds.stream().distinct().limit(MAX_PRODUCTS_PER_ORDER).toList();
+        if (distinct.size() < 2) {
+            return;
+        }
+        double weight = Math.pow(2, (placedAt.atZone(ZoneId.systemDefault()).toEpochSecond() - epochSeconds) / halfLifeSeconds);
+        for (Long a : distinct) {
+            graph.compute(a, (id, partners) -> {
+                Map<Long, DoubleAdder> edges = partners != null ? partners : new ConcurrentHashMap<>();
+                for (Long b : distinct) {
+                    if (!a.equals(b)) {
+                        edges.computeIfAbsent(b, partner -> new DoubleAdder()).add(weight);
+                    }
+                }
+                return edges;
+            });
+        }
+    }
+
+    private double currentDecay() {
+        long now = System.currentTimeMillis() / 1000;
+        return Math.pow(2, -(now - epochSeconds) / halfLifeSeconds);
+    }
+}
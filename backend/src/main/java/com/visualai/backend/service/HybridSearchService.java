@@ -0,0 +1,207 @@
+package com.visualai.backend.service;
+
+import com.visualai.backend.dto.HybridSearchHitDTO;
+import com.visualai.backend.dto.HybridSearchResultDTO;
+import com.visualai.backend.dto.ProductDTO;
+import com.visualai.backend.dto.SimilarProductDTO;
+import com.visualai.backend.search.ProductFacetIndex;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Text + visual search in one ranking. The keyword index and the vector index
+ * produce candidate lists in parallel, which are merged with reciprocal-rank
+ * fusion: score = sum over lists of 1 / (k + rank). Each generator applies the
+ * facet filters before cutting its list, so a narrow filter still gets a full
+ * set of candidates; the fused list is filtered again against the live index.
+ *
+ * Generators share a per-request latency budget; one that has not finished by
+ * the deadline is left out and the response is flagged partial. The default
+ * budget is larger when an image has to go through CLIP.
+ */
+@Slf4j
+@Service
+public class HybridSearchService {
+
+    // Damping constant from the original RRF paper
+    private static final int RRF_K = 60;
+    // With facets selected, the vector search widens k up to this multiple of the candidate count
+    private static final int MAX_VECTOR_EXPANSION = 16;
+
+    private final ProductService productService;
+    private final VectorSearchService vectorSearchService;
+    private final VisualSearchGateway visualSearchGateway;
+    private final ProductFacetIndex facetIndex;
+    private final ThreadPoolExecutor executor;
+    private final int candidates;
+    private final long textBudgetMs;
+    private final long imageBudgetMs;
+
+    public HybridSearchService(ProductService productService,
+            VectorSearchService vectorSearchService,
+            VisualSearchGateway visualSearchGateway,
+            ProductFacetIndex facetIndex,
+            @Value("${hybrid.threads:0}") int threads,
+            @Value("${hybrid.queue-capacity:128}") int queueCapacity,
+            @Value("${hybrid.candidates:100}") int candidates,
+            @Value("${hybrid.default-budget-ms:300}") long textBudgetMs,
+            @Value("${hybrid.image-budget-ms:2000}") long imageBudgetMs) {
+        this.productService = productService;
+        this.vectorSearchService = vectorSearchService;
+        this.visualSearchGateway = visualSearchGateway;
+        this.facetIndex = facetIndex;
+        this.candidates = candidates;
+        this.textBudgetMs = textBudgetMs;
+        this.imageBudgetMs = imageBudgetMs;
+
+        int poolSize = threads > 0 ? threads : 2 * Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "hybrid-search-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @param query      keyword query, or null for visual-only search
+     * @param image      uploaded image bytes, or null for text-only search
+     * @param selections facet filters, as for {@link ProductFacetIndex#filter}
+     * @param budgetMs   latency budget, or null for the configured default
+     */
+    public HybridSearchResultDTO search(String query, byte[] image, String filename, String contentType,
+            Map<String, List<String>> selections, int limit, Long budgetMs) {
+        long start = System.nanoTime();
+        long budget = budgetMs != null ? budgetMs : image != null ? imageBudgetMs : textBudgetMs;
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(budget);
+        boolean partial = false;
+        Predicate<Long> matches = facetIndex.matcher(selections);
+
+        Future<List<Long>> keyword = null;
+        if (query != null && !query.isBlank()) {
+            // The facet filter goes into the index search, ahead of its cut to the top results
+            keyword = submit(() -> productService.searchProducts(query, matches, candidates).stream()
+                    .map(ProductDTO::getId)
+                    .toList());
+        }
+        Future<List<Long>> vector = null;
+        if (image != null) {
+            if (vectorSearchService.isReady()) {
+                vector = submit(() -> vectorCandidates(
+                        visualSearchGateway.encode(image, filename, contentType).embedding(), matches));
+            } else {
+                partial = true;
+            }
+        }
+
+        List<Long> keywordIds = awaitCandidates(keyword, deadline);
+        List<Long> vectorIds = awaitCandidates(vector, deadline);
+        partial |= (keyword != null && keywordIds == null) || (vector != null && vectorIds == null);
+
+        Map<Long, Fusion> fused = new HashMap<>();
+        accumulate(fused, keywordIds, true);
+        accumulate(fused, vectorIds, false);
+
+        Comparator<Map.Entry<Long, Fusion>> byScore = Comparator.comparingDouble(entry -> entry.getValue().score);
+        List<Long> ranked = fused.entrySet().stream()
+                .sorted(byScore.reversed().thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+
+        List<HybridSearchHitDTO> results = new ArrayList<>();
+        for (ProductDTO product : facetIndex.select(ranked, selections)) {
+            Fusion fusion = fused.get(product.getId());
+            results.add(new HybridSearchHitDTO(product, fusion.score, fusion.keywordRank, fusion.vectorRank));
+            if (results.size() == limit) {
+                break;
+            }
+        }
+
+        return new HybridSearchResultDTO(results, partial,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Nearest neighbours that pass the facet filter, searching wider while too few do
+    private List<Long> vectorCandidates(float[] embedding, Predicate<Long> matches) {
+        for (int k = candidates; ; k *= 4) {
+            List<SimilarProductDTO> hits = vectorSearchService.findSimilar(embedding, k);
+            List<Long> ids = hits.stream()
+                    .map(SimilarProductDTO::getProductId)
+                    .filter(matches)
+                    .limit(candidates)
+                    .toList();
+            if (ids.size() == candidates || hits.size() < k || k >= candidates * MAX_VECTOR_EXPANSION) {
+                return ids;
+            }
+        }
+    }
+
+    private Future<List<Long>> submit(Callable<List<Long>> generator) {
+        try {
+            return executor.submit(generator);
+        } catch (RejectedExecutionException e) {
+            log.warn("Hybrid search pool saturated; skipping a candidate generator");
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * @return the generator's candidates, or null if it failed or missed the deadline
+     */
+    private static List<Long> awaitCandidates(Future<List<Long>> future, long deadline) {
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            return null;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            log.warn("Hybrid search candidate generator failed: {}", e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    // Adds one candidate list's reciprocal-rank contributions
+    private static void accumulate(Map<Long, Fusion> fused, List<Long> ids, boolean keyword) {
+        if (ids == null) {
+            return;
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            int rank = i + 1;
+            Fusion fusion = fused.computeIfAbsent(ids.get(i), id -> new Fusion());
+            fusion.score += 1.0 / (RRF_K + rank);
+            if (keyword) {
+                fusion.keywordRank = rank;
+            } else {
+                fusion.vectorRank = rank;
+            }
+        }
+    }
+
+    private static final class Fusion {
+        double score;
+        Integer keywordRank;
+        Integer vectorRank;
+    }
+}
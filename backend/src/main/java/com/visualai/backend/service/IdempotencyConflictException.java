@@ -0,0 +1,11 @@
+package com.visualai.backend.service;
+
+/**
+ * Thrown when a request reuses an Idempotency-Key whose first request is still
+ * being processed elsewhere.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+    public IdempotencyConflictException() {
+        super("A request with this Idempotency-Key is still being processed");
+    }
+}
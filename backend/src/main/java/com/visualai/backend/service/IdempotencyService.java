@@ -0,0 +1,241 @@
+package com.visualai.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per (user, Idempotency-Key) and replays its
+ * response to repeats.
+ *
+ * Concurrent duplicates on this instance wait on the first execution's future
+ * instead of running again. Recent responses are answered from memory. The
+ * idempotency_keys table is the fallback for everything else: a key is claimed
+ * there before the action runs, so a duplicate arriving at another instance, or
+ * after a restart, either replays the stored response or gets a conflict while
+ * the first request is still running. Only successful responses are kept; a
+ * failed attempt releases its key so the client can retry it.
+ *
+ * The action runs in a transaction that also writes its stored response, so
+ * the response commits exactly when the action's own writes do. A claim whose
+ * response is still missing therefore never hides a committed order, and is
+ * safe to take over once it is older than {@code idempotency.pending-timeout-ms}.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate actionTransaction;
+    private final long ttlMillis;
+    private final long waitTimeoutMs;
+    private final long pendingTimeoutMs;
+
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, StoredResponse> completed;
+
+    public IdempotencyService(JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${idempotency.ttl-hours:24}") long ttlHours,
+            @Value("${idempotency.max-cached:10000}") int maxCached,
+            @Value("${idempotency.wait-timeout-ms:10000}") long waitTimeoutMs,
+            @Value("${idempotency.pending-timeout-ms:60000}") long pendingTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        // Joined by the action's own @Transactional methods
+        this.actionTransaction = new TransactionTemplate(transactionManager);
+        this.ttlMillis = TimeUnit.HOURS.toMillis(ttlHours);
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.pendingTimeoutMs = pendingTimeoutMs;
+        this.completed = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > maxCached;
+            }
+        });
+    }
+
+    /**
+     * @throws IdempotencyConflictException if the key's first request is still
+     *         running on another instance, or did not finish in time here
+     */
+    public ResponseEntity<?> execute(Long userId, String key, Supplier<ResponseEntity<?>> action) {
+        String cacheKey = userId + ":" + key;
+        StoredResponse recent = completed.get(cacheKey);
+        if (recent != null && System.currentTimeMillis() - recent.storedAt() < ttlMillis) {
+            return recent.replay();
+        }
+
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> first = inFlight.putIfAbsent(cacheKey, mine);
+        if (first != null) {
+            return await(first).replay();
+        }
+
+        try {
+            StoredResponse stored = claim(userId, key);
+            if (stored != null) {
+                completed.put(cacheKey, stored);
+                mine.complete(stored);
+                return stored.replay();
+            }
+
+            Outcome outcome;
+            try {
+                outcome = actionTransaction.execute(status -> {
+                    ResponseEntity<?> response = action.get();
+                    StoredResponse result = new StoredResponse(response.getStatusCode().value(),
+                            serialize(response.getBody()), System.currentTimeMillis());
+                    if (response.getStatusCode().is2xxSuccessful()) {
+                        store(userId, key, result);
+                    } else {
+                        status.setRollbackOnly();
+                    }
+                    return new Outcome(response, result);
+                });
+            } catch (IdempotencyConflictException e) {
+                // The claim is no longer ours to release
+                mine.completeExceptionally(e);
+                throw e;
+            } catch (RuntimeException e) {
+                release(userId, key);
+                mine.completeExceptionally(e);
+                throw e;
+            }
+
+            if (outcome.response().getStatusCode().is2xxSuccessful()) {
+                completed.put(cacheKey, outcome.stored());
+            } else {
+                release(userId, key);
+            }
+            // Duplicates that were waiting get the same answer either way
+            mine.complete(outcome.stored());
+            return outcome.response();
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, mine);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int purged = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE created_at < ?",
+                LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(ttlMillis)));
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    /**
+     * Claims the key for this request.
+     *
+     * @return null once claimed, or the stored response of an earlier request
+     */
+    private StoredResponse claim(Long userId, String key) {
+        // A second pass follows a stale claim being cleared, or a row vanishing between insert and read
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                jdbcTemplate.update("INSERT INTO idempotency_keys (user_id, idem_key, created_at) VALUES (?, ?, ?)",
+                        userId, key, LocalDateTime.now());
+                return null;
+            } catch (DuplicateKeyException e) {
+                List<StoredResponse> rows = jdbcTemplate.query(
+                        "SELECT status_code, response_body FROM idempotency_keys WHERE user_id = ? AND idem_key = ?",
+                        (rs, rowNum) -> rs.getObject("status_code") == null ? null
+                                : new StoredResponse(rs.getInt("status_code"), rs.getString("response_body"),
+                                        System.currentTimeMillis()),
+                        userId, key);
+                if (rows.isEmpty()) {
+                    continue;
+                }
+                if (rows.get(0) != null) {
+                    return rows.get(0);
+                }
+                // Still pending: take it over only if the claimant has evidently died
+                int cleared = jdbcTemplate.update(
+                        "DELETE FROM idempotency_keys WHERE user_id = ? AND idem_key = ? AND status_code IS NULL AND created_at < ?",
+                        userId, key,
+                        LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(pendingTimeoutMs)));
+                if (cleared == 0) {
+                    throw new IdempotencyConflictException();
+                }
+            }
+        }
+        throw new IdempotencyConflictException();
+    }
+
+    // Only into our own pending claim; if it was taken over, the action's transaction rolls back
+    private void store(Long userId, String key, StoredResponse result) {
+        int updated = jdbcTemplate.update(
+                "UPDATE idempotency_keys SET status_code = ?, response_body = ? "
+                        + "WHERE user_id = ? AND idem_key = ? AND status_code IS NULL",
+                result.status(), result.body(), userId, key);
+        if (updated == 0) {
+            throw new IdempotencyConflictException();
+        }
+    }
+
+    private void release(Long userId, String key) {
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE user_id = ? AND idem_key = ? AND status_code IS NULL",
+                userId, key);
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> first) {
+        try {
+            return first.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a duplicate request", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Duplicate request failed", e.getCause());
+        }
+    }
+
+    private String serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store the response for replay", e);
+        }
+    }
+
+    private record Outcome(ResponseEntity<?> response, StoredResponse stored) {
+    }
+
+    private record StoredResponse(int status, String body, long storedAt) {
+        ResponseEntity<String> replay() {
+            return ResponseEntity.status(status)
+                    .header(REPLAYED_HEADER, "true")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(body);
+        }
+    }
+}
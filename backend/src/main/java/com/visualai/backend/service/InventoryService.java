@@ -0,0 +1,261 @@
+package com.visualai.backend.service;
+
+import com.visualai.backend.entity.CartItem;
+import com.visualai.backend.entity.InventoryItem;
+import com.visualai.backend.entity.Product;
+import com.visualai.backend.repository.InventoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Per-SKU stock reservation for checkout.
+ *
+ * Each SKU has an in-memory counter that orders claim with a compare-and-set,
+ * so a sold-out item is rejected without touching the database and concurrent
+ * checkouts of different SKUs never contend. Claimed quantities are written
+ * just before the order commits, as one JDBC batch of conditional
+ * {@code UPDATE ... WHERE quantity >= ?} statements; the database stays the
+ * authority, so a counter that drifted (e.g. another instance sold the last
+ * unit) costs a rollback, never an oversell. Row locks are only held for the
+ * final flush and commit rather than the whole checkout.
+ *
+ * Counters of products nobody has ordered for {@code inventory.idle-evict-ms}
+ * are dropped, so the periodic refresh only re-reads products in demand.
+ */
+@Slf4j
+@Service
+public class InventoryService {
+
+    private static final String ANY = "";
+
+    private final InventoryRepository inventoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    // productId -> SKU counters by variant key; an empty map marks an untracked product
+    private final Map<Long, Map<String, Sku>> counters = new ConcurrentHashMap<>();
+    // productId -> when an order last asked for it
+    private final Map<Long, Long> lastReserved = new ConcurrentHashMap<>();
+    private final long idleEvictMs;
+
+    public InventoryService(InventoryRepository inventoryRepository, JdbcTemplate jdbcTemplate,
+            @Value("${inventory.idle-evict-ms:600000}") long idleEvictMs) {
+        this.inventoryRepository = inventoryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.idleEvictMs = idleEvictMs;
+    }
+
+    /**
+     * Claims stock for every cart line in the current transaction. The claim is
+     * written to the inventory table before commit and handed back if the
+     * transaction rolls back.
+     *
+     * @throws OutOfStockException if any line cannot be covered
+     */
+    public void reserve(List<CartItem> items) {
+        Map<Long, Map<String, Sku>> stock = countersFor(items.stream()
+                .map(item -> item.getProduct().getId())
+                .collect(Collectors.toSet()));
+
+        Map<Sku, Integer> wanted = new TreeMap<>(Comparator.comparingLong((Sku sku) -> sku.id));
+        Map<Sku, String> names = new HashMap<>();
+        for (CartItem item : items) {
+            Product product = item.getProduct();
+            Sku sku = resolve(stock.get(product.getId()), item.getSelectedColor(), item.getSelectedSize());
+            if (sku == null) {
+                if (!Boolean.TRUE.equals(product.getInStock())) {
+                    throw new OutOfStockException(product.getName());
+                }
+                continue;
+            }
+            wanted.merge(sku, item.getQuantity(), Integer::sum);
+            names.put(sku, product.getName());
+        }
+        if (wanted.isEmpty()) {
+            return;
+        }
+
+        Map<Sku, Integer> claimed = new LinkedHashMap<>();
+        for (Map.Entry<Sku, Integer> entry : wanted.entrySet()) {
+            if (!entry.getKey().tryClaim(entry.getValue())) {
+                claimed.forEach((sku, quantity) -> sku.settle(quantity, false));
+                throw new OutOfStockException(names.get(entry.getKey()));
+            }
+            claimed.put(entry.getKey(), entry.getValue());
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                writeClaims(claimed, names);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                boolean committed = status == STATUS_COMMITTED;
+                claimed.forEach((sku, quantity) -> sku.settle(quantity, committed));
+            }
+        });
+    }
+
+    // Re-reads tracked products so counters follow restocks and sales made by other instances
+    @Scheduled(initialDelayString = "${inventory.refresh-interval-ms:30000}",
+            fixedDelayString = "${inventory.refresh-interval-ms:30000}")
+    public void refresh() {
+        evictIdle();
+        List<Long> productIds = new ArrayList<>(counters.keySet());
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Map<Long, List<InventoryItem>> rows = inventoryRepository.findByProductIdIn(productIds).stream()
+                .collect(Collectors.groupingBy(InventoryItem::getProductId));
+        // Only the products just read; one loaded meanwhile already has fresh counters
+        for (Long productId : productIds) {
+            counters.computeIfPresent(productId, (id, skus) -> merge(skus, rows.getOrDefault(id, List.of())));
+        }
+    }
+
+    // An order that resolved an evicted counter still settles it; the next load starts from the database
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleEvictMs;
+        for (Long productId : counters.keySet()) {
+            Long reservedAt = lastReserved.get(productId);
+            if (reservedAt != null && reservedAt > cutoff) {
+                continue;
+            }
+            Map<String, Sku> evicted = counters.computeIfPresent(productId, (id, skus) ->
+                    skus.values().stream().anyMatch(sku -> sku.pending.get() > 0) ? skus : null);
+            if (evicted == null && reservedAt != null) {
+                lastReserved.remove(productId, reservedAt);
+            }
+        }
+    }
+
+    private void writeClaims(Map<Sku, Integer> claimed, Map<Sku, String> names) {
+        List<Sku> skus = new ArrayList<>(claimed.keySet());
+        // Ascending ids, so concurrent orders lock shared rows in the same order
+        List<Object[]> args = skus.stream()
+                .map(sku -> new Object[]{claimed.get(sku), sku.id, claimed.get(sku)})
+                .toList();
+        int[] updated = jdbcTemplate.batchUpdate(
+                "UPDATE inventory SET quantity = quantity - ? WHERE id = ? AND quantity >= ?", args);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                Sku sku = skus.get(i);
+                log.info("Inventory counter for SKU {} was ahead of the database; reloading", sku.id);
+                counters.remove(sku.productId);
+                throw new OutOfStockException(names.get(sku));
+            }
+        }
+    }
+
+    // The products' counters, loading any not held yet
+    private Map<Long, Map<String, Sku>> countersFor(Set<Long> productIds) {
+        long now = System.currentTimeMillis();
+        productIds.forEach(productId -> lastReserved.put(productId, now));
+
+        Map<Long, Map<String, Sku>> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : productIds) {
+            Map<String, Sku> skus = counters.get(productId);
+            if (skus != null) {
+                found.put(productId, skus);
+            } else {
+                missing.add(productId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<Long, List<InventoryItem>> rows = inventoryRepository.findByProductIdIn(missing).stream()
+                    .collect(Collectors.groupingBy(InventoryItem::getProductId));
+            for (Long productId : missing) {
+                found.put(productId, counters.computeIfAbsent(productId,
+                        id -> merge(Map.of(), rows.getOrDefault(id, List.of()))));
+            }
+        }
+        return found;
+    }
+
+    // Exact variant first, then a row covering any color or size
+    private static Sku resolve(Map<String, Sku> skus, String color, String size) {
+        if (skus.isEmpty()) {
+            return null;
+        }
+        String c = color != null ? color : ANY;
+        String s = size != null ? size : ANY;
+        for (String key : List.of(key(c, s), key(c, ANY), key(ANY, s), key(ANY, ANY))) {
+            Sku sku = skus.get(key);
+            if (sku != null) {
+                return sku;
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, Sku> merge(Map<String, Sku> current, List<InventoryItem> rows) {
+        Map<String, Sku> merged = new HashMap<>();
+        for (InventoryItem row : rows) {
+            String key = key(row.getColor(), row.getSize());
+            Sku sku = current.get(key);
+            if (sku != null && sku.id == row.getId()) {
+                sku.resync(row.getQuantity());
+            } else {
+                sku = new Sku(row.getId(), row.getProductId(), row.getQuantity());
+            }
+            merged.put(key, sku);
+        }
+        return merged.isEmpty() ? Map.of() : Map.copyOf(merged);
+    }
+
+    private static String key(String color, String size) {
+        return color + "|" + size;
+    }
+
+    private static final class Sku {
+        final long id;
+        final long productId;
+        // Units not claimed by any order on this instance
+        final AtomicInteger available;
+        // Units claimed by orders that have not committed or rolled back yet
+        final AtomicInteger pending = new AtomicInteger();
+
+        Sku(long id, long productId, int quantity) {
+            this.id = id;
+            this.productId = productId;
+            this.available = new AtomicInteger(quantity);
+        }
+
+        boolean tryClaim(int quantity) {
+            while (true) {
+                int current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+                if (available.compareAndSet(current, current - quantity)) {
+                    pending.addAndGet(quantity);
+                    return true;
+                }
+            }
+        }
+
+        void settle(int quantity, boolean sold) {
+            pending.addAndGet(-quantity);
+            if (!sold) {
+                available.addAndGet(quantity);
+            }
+        }
+
+        // The database count already excludes committed sales, not ones still pending here
+        void resync(int quantity) {
+            available.set(Math.max(0, quantity - pending.get()));
+        }
+    }
+}
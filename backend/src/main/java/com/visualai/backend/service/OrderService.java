@@ -1,31 +1,58 @@
 package com.visualai.backend.service;
 
+import com.visualai.backend.cache.CartStore;
+import com.visualai.backend.dto.OrderDetailDTO;
+import com.visualai.backend.dto.OrderItemDTO;
+import com.visualai.backend.dto.OrderPageDTO;
+import com.visualai.backend.dto.OrderSummaryDTO;
 import com.visualai.backend.entity.*;
+import com.visualai.backend.event.OrderPlacedEvent;
 import com.visualai.backend.repository.CartRepository;
+import com.visualai.backend.repository.OrderItemRepository;
 import com.visualai.backend.repository.OrderRepository;
+import com.visualai.backend.repository.UserRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Map;
+import java.time.format.DateTimeParseException;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
 
+    private static final int MAX_PAGE_SIZE = 50;
+
     private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
     private final CartRepository cartRepository;
+    private final UserRepository userRepository;
+    private final CartStore cartStore;
+    private final InventoryService inventoryService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
-    public Order placeOrder(User user, Map<String, String> address) {
+    public Order placeOrder(Long userId, Map<String, String> address) {
+        // Cart edits are written behind; make cart_items current before reading it
+        cartStore.flush(userId);
+        // The principal is a snapshot, not an entity; a reference is all the foreign keys need
+        User user = userRepository.getReferenceById(userId);
         List<CartItem> cartItems = cartRepository.findByUser(user);
 
         if (cartItems.isEmpty()) {
             throw new RuntimeException("Cart is empty");
         }
 
+        // Claims stock up front; the database decrement is flushed right before commit
+        inventoryService.reserve(cartItems);
+
         // Calculate totals
         double subtotal = cartItems.stream()
                 .mapToDouble(item -> item.getProduct().getPrice() * item.getQuantity())
@@ -69,14 +96,112 @@ public class OrderService {
         }
 
         orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderPlacedEvent(order.getId(),
+                order.getItems().stream().map(OrderItem::getProductId).toList(),
+                order.getCreatedAt()));
 
-        // Clear cart after placing order
+        // Clear cart after placing order. The cached copy goes once the delete has committed;
+        // dropped any earlier, a cart read in between would reload the rows being deleted.
         cartRepository.deleteByUser(user);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cartStore.discard(userId);
+            }
+        });
 
         return order;
     }
 
-    public List<Order> getOrderHistory(User user) {
-        return orderRepository.findByUserOrderByCreatedAtDesc(user);
+    /**
+     * One page of the user's orders, newest first, in two queries: the order
+     * columns and the unit counts of that page's orders.
+     */
+    public OrderPageDTO getOrderPage(Long userId, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Fetch one extra row to learn whether another page follows
+        PageRequest page = PageRequest.ofSize(pageSize + 1);
+        List<Object[]> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = orderRepository.findSummaries(userId, page);
+        } else {
+            OrderCursor after = decodeCursor(cursor);
+            rows = orderRepository.findSummariesBefore(userId, after.createdAt(), after.id(), page);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<Object[]> pageRows = rows.subList(0, Math.min(rows.size(), pageSize));
+        Map<Long, Integer> units = new HashMap<>();
+        if (!pageRows.isEmpty()) {
+            for (Object[] row : orderItemRepository.sumQuantitiesByOrderIds(
+                    pageRows.stream().map(row -> (Long) row[0]).toList())) {
+                units.put((Long) row[0], ((Number) row[1]).intValue());
+            }
+        }
+
+        List<OrderSummaryDTO> items = pageRows.stream()
+                .map(row -> OrderSummaryDTO.builder()
+                        .id((Long) row[0])
+                        .createdAt((LocalDateTime) row[1])
+                        .status((String) row[2])
+                        .total((Double) row[3])
+                        .itemCount(units.getOrDefault((Long) row[0], 0))
+                        .build())
+                .toList();
+        String nextCursor = hasMore ? encodeCursor(items.get(items.size() - 1)) : null;
+
+        return OrderPageDTO.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    // Two queries: the order, then its items
+    public Optional<OrderDetailDTO> getOrderDetail(Long userId, Long orderId) {
+        return orderRepository.findByIdAndUserId(orderId, userId)
+                .map(order -> OrderDetailDTO.builder()
+                        .id(order.getId())
+                        .createdAt(order.getCreatedAt())
+                        .status(order.getStatus())
+                        .subtotal(order.getSubtotal())
+                        .shipping(order.getShipping())
+                        .discount(order.getDiscount())
+                        .total(order.getTotal())
+                        .shippingName(order.getShippingName())
+                        .shippingPhone(order.getShippingPhone())
+                        .shippingStreet(order.getShippingStreet())
+                        .shippingCity(order.getShippingCity())
+                        .shippingState(order.getShippingState())
+                        .shippingZip(order.getShippingZip())
+                        .items(orderItemRepository.findByOrderIdOrderByIdAsc(order.getId()).stream()
+                                .map(item -> OrderItemDTO.builder()
+                                        .productId(item.getProductId())
+                                        .productName(item.getProductName())
+                                        .productImage(item.getProductImage())
+                                        .price(item.getPrice())
+                                        .quantity(item.getQuantity())
+                                        .selectedColor(item.getSelectedColor())
+                                        .selectedSize(item.getSelectedSize())
+                                        .build())
+                                .toList())
+                        .build());
+    }
+
+    // Keyset position: the last order's creation time, with its id as tie-breaker
+    private record OrderCursor(LocalDateTime createdAt, Long id) {
+    }
+
+    private static OrderCursor decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+            return new OrderCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static String encodeCursor(OrderSummaryDTO last) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((last.getCreatedAt() + "|" + last.getId()).getBytes(StandardCharsets.UTF_8));
     }
 }
@@ -0,0 +1,10 @@
+package com.visualai.backend.service;
+
+/**
+ * Thrown when an order asks for more units of a SKU than are left.
+ */
+public class OutOfStockException extends RuntimeException {
+    public OutOfStockException(String productName) {
+        super("Not enough stock left for " + productName);
+    }
+}
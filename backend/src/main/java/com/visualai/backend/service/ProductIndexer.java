@@ -0,0 +1,45 @@
+package com.visualai.backend.service;
+
+import com.visualai.backend.dto.ProductDTO;
+import com.visualai.backend.event.ProductChangedEvent;
+import com.visualai.backend.search.ProductIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Feeds every {@link ProductIndex} bean: a full build from MySQL once the
+ * application is up, then one incremental update per committed product write.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductIndexer {
+
+    private final ProductService productService;
+    private final List<ProductIndex> indexes;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndexes() {
+        long start = System.currentTimeMillis();
+        List<ProductDTO> products = productService.getAllProducts();
+        indexes.forEach(index -> index.rebuild(products));
+        log.info("Built {} product indexes over {} products in {} ms",
+                indexes.size(), products.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.Type.DELETED) {
+            indexes.forEach(index -> index.remove(event.getProductId()));
+        } else {
+            ProductDTO product = productService.toDTO(event.getProduct());
+            indexes.forEach(index -> index.upsert(product));
+        }
+    }
+}
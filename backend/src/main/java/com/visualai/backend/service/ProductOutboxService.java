@@ -0,0 +1,59 @@
+package com.visualai.backend.service;
+
+import com.visualai.backend.event.ProductChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Transactional outbox for product changes. Each change is recorded in
+ * product_outbox on the same connection and transaction as the product write,
+ * so the AI service's index consumer sees exactly the committed changes and can
+ * apply them as deltas instead of re-encoding the whole catalog.
+ *
+ * The listener is synchronous rather than a BEFORE_COMMIT
+ * {@code @TransactionalEventListener}: updates are only flushed, and so only
+ * published, while the transaction is already committing. Plain JDBC is safe to
+ * issue from inside that flush.
+ */
+@Slf4j
+@Service
+public class ProductOutboxService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int retentionDays;
+
+    public ProductOutboxService(JdbcTemplate jdbcTemplate,
+            @Value("${outbox.retention-days:7}") int retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retentionDays = retentionDays;
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        // A price or stock edit leaves the embedding as it is; only creates, deletes and new images need CLIP
+        if (!event.isImageChanged()) {
+            return;
+        }
+        jdbcTemplate.update(
+                "INSERT INTO product_outbox (product_id, event_type, image, created_at) VALUES (?, ?, ?, ?)",
+                event.getProductId(),
+                event.getType().name(),
+                event.getProduct().getImage(),
+                LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.purge-interval-ms:3600000}")
+    public void purgeProcessed() {
+        int purged = jdbcTemplate.update("DELETE FROM product_outbox WHERE processed_at < ?",
+                LocalDateTime.now().minusDays(retentionDays));
+        if (purged > 0) {
+            log.info("Purged {} processed product outbox rows", purged);
+        }
+    }
+}
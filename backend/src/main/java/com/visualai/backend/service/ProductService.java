@@ -1,20 +1,40 @@
 package com.visualai.backend.service;
 
+import com.visualai.backend.dto.FacetSearchResultDTO;
 import com.visualai.backend.dto.ProductDTO;
+import com.visualai.backend.dto.ProductPageDTO;
 import com.visualai.backend.entity.Product;
 import com.visualai.backend.repository.ProductRepository;
+import com.visualai.backend.search.ProductFacetIndex;
+import com.visualai.backend.search.ProductSearchIndex;
+import com.visualai.backend.search.TextTokenizer;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
 
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int STREAM_BATCH_SIZE = 500;
+
     private final ProductRepository productRepository;
+    private final ProductSearchIndex searchIndex;
+    private final ProductFacetIndex facetIndex;
+    private final EntityManager entityManager;
 
     public List<ProductDTO> getAllProducts() {
         return productRepository.findAll().stream()
@@ -22,10 +42,58 @@ public class ProductService {
                 .collect(Collectors.toList());
     }
 
+    public ProductPageDTO getProductPage(String cursor, int limit, String category, Double minPrice, Double maxPrice) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Fetch one extra row to learn whether another page follows
+        List<Product> rows = productRepository.findPageAfter(decodeCursor(cursor), emptyToNull(category),
+                minPrice, maxPrice, PageRequest.ofSize(pageSize + 1));
+
+        boolean hasMore = rows.size() > pageSize;
+        List<ProductDTO> items = rows.stream()
+                .limit(pageSize)
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+        String nextCursor = hasMore ? encodeCursor(items.get(items.size() - 1).getId()) : null;
+
+        return ProductPageDTO.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Walks the whole (filtered) catalog in keyset batches, handing each batch to
+     * the consumer and then clearing the persistence context, so memory use stays
+     * flat however many products there are.
+     */
+    public void streamProducts(String category, Double minPrice, Double maxPrice, Consumer<List<ProductDTO>> consumer) {
+        long afterId = 0;
+        while (true) {
+            List<Product> rows = productRepository.findPageAfter(afterId, emptyToNull(category),
+                    minPrice, maxPrice, PageRequest.ofSize(STREAM_BATCH_SIZE));
+            if (rows.isEmpty()) {
+                return;
+            }
+            afterId = rows.get(rows.size() - 1).getId();
+            consumer.accept(rows.stream().map(this::toDTO).collect(Collectors.toList()));
+            entityManager.clear();
+            if (rows.size() < STREAM_BATCH_SIZE) {
+                return;
+            }
+        }
+    }
+
     public Optional<ProductDTO> getProductById(Long id) {
         return productRepository.findById(id).map(this::toDTO);
     }
 
+    // One IN query for all ids; result order is unspecified and missing ids are skipped
+    public List<ProductDTO> getProductsByIds(Collection<Long> ids) {
+        return productRepository.findAllById(ids).stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+    }
+
     public List<ProductDTO> getProductsByCategory(String category) {
         return productRepository.findByCategory(category).stream()
                 .map(this::toDTO)
@@ -33,19 +101,57 @@ public class ProductService {
     }
 
     public List<ProductDTO> searchProducts(String query) {
+        // Queries made only of punctuation or symbols have no index terms; the LIKE
+        // scan still matches them as substrings, as does everything while the index
+        // is being built at startup
+        if (searchIndex.isReady() && !TextTokenizer.tokenize(query).isEmpty()) {
+            return searchIndex.search(query, MAX_SEARCH_RESULTS);
+        }
         return productRepository.searchByNameOrDescription(query).stream()
                 .map(this::toDTO)
                 .collect(Collectors.toList());
     }
 
-    public List<ProductDTO> getRelatedProducts(Long productId, String category, int limit) {
-        return productRepository.findByCategoryAndIdNot(category, productId).stream()
+    /**
+     * Keyword search restricted to products whose id passes {@code filter},
+     * filtered before the result is cut to {@code limit}.
+     */
+    public List<ProductDTO> searchProducts(String query, Predicate<Long> filter, int limit) {
+        if (searchIndex.isReady() && !TextTokenizer.tokenize(query).isEmpty()) {
+            return searchIndex.search(query, limit, filter);
+        }
+        return productRepository.searchByNameOrDescription(query).stream()
+                .filter(product -> filter.test(product.getId()))
                 .limit(limit)
                 .map(this::toDTO)
                 .collect(Collectors.toList());
     }
 
-    private ProductDTO toDTO(Product product) {
+    public FacetSearchResultDTO filterProducts(Map<String, List<String>> selections, int offset, int limit) {
+        return facetIndex.filter(selections, Math.max(0, offset), Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+
+    private static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    ProductDTO toDTO(Product product) {
         return ProductDTO.builder()
                 .id(product.getId())
                 .name(product.getName())
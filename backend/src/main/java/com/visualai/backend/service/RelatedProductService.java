@@ -0,0 +1,174 @@
+package com.visualai.backend.service;
+
+import com.visualai.backend.cache.CatalogCache;
+import com.visualai.backend.dto.ProductDTO;
+import com.visualai.backend.entity.RelatedProduct;
+import com.visualai.backend.repository.ProductRepository;
+import com.visualai.backend.repository.RelatedProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Serves "related products" from the precomputed related_products table and
+ * periodically recomputes that table in the background.
+ *
+ * Candidates for a product are its price neighbours within the same category
+ * plus its top partners in {@link CoPurchaseService}; each candidate is scored
+ * on category match, price proximity, rating and co-purchase strength, and the
+ * best {@code related.top-n} are stored in rank order.
+ */
+@Slf4j
+@Service
+public class RelatedProductService {
+
+    private static final double CATEGORY_WEIGHT = 0.35;
+    private static final double PRICE_WEIGHT = 0.25;
+    private static final double RATING_WEIGHT = 0.15;
+    private static final double CO_PURCHASE_WEIGHT = 0.25;
+    // Neighbours on each side, by price, considered within a category
+    private static final int PRICE_WINDOW = 25;
+    private static final int CO_PURCHASE_CANDIDATES = 25;
+
+    private final RelatedProductRepository relatedProductRepository;
+    private final ProductRepository productRepository;
+    private final CoPurchaseService coPurchaseService;
+    private final ProductService productService;
+    private final CatalogCache catalogCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int topN;
+
+    public RelatedProductService(RelatedProductRepository relatedProductRepository,
+            ProductRepository productRepository,
+            CoPurchaseService coPurchaseService,
+            ProductService productService,
+            CatalogCache catalogCache,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${related.top-n:12}") int topN) {
+        this.relatedProductRepository = relatedProductRepository;
+        this.productRepository = productRepository;
+        this.coPurchaseService = coPurchaseService;
+        this.productService = productService;
+        this.catalogCache = catalogCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.topN = topN;
+    }
+
+    public List<ProductDTO> getRelatedProducts(Long productId, String category, int limit) {
+        // Only topN rows are stored per product
+        PageRequest page = PageRequest.ofSize(Math.max(1, Math.min(limit, topN)));
+        List<Long> relatedIds = relatedProductRepository
+                .findByProductIdOrderByRankOrderAsc(productId, page).stream()
+                .map(RelatedProduct::getRelatedProductId)
+                .toList();
+
+        if (relatedIds.isEmpty()) {
+            // Not computed yet (e.g. a product added since the last refresh)
+            return productRepository.findByCategoryAndIdNot(category, productId, page).stream()
+                    .map(productService::toDTO)
+                    .collect(Collectors.toList());
+        }
+
+        // Mostly served from the catalog cache; misses are loaded with one IN query
+        Map<Long, ProductDTO> byId = catalogCache.getProductsByIds(relatedIds).stream()
+                .collect(Collectors.toMap(ProductDTO::getId, Function.identity()));
+        return relatedIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Scheduled(initialDelayString = "${related.initial-delay-ms:30000}",
+            fixedDelayString = "${related.refresh-interval-ms:900000}")
+    public void refresh() {
+        long start = System.currentTimeMillis();
+        List<ProductDTO> products = productService.getAllProducts();
+
+        List<Object[]> rows = new ArrayList<>();
+        Map<Long, ProductDTO> byId = products.stream()
+                .collect(Collectors.toMap(ProductDTO::getId, Function.identity()));
+        Map<String, List<ProductDTO>> byCategory = products.stream()
+                .filter(p -> p.getCategory() != null)
+                .collect(Collectors.groupingBy(ProductDTO::getCategory));
+        Map<Long, Integer> pricePositions = new HashMap<>();
+        byCategory.values().forEach(list -> {
+            list.sort(Comparator.comparingDouble(ProductDTO::getPrice));
+            for (int i = 0; i < list.size(); i++) {
+                pricePositions.put(list.get(i).getId(), i);
+            }
+        });
+
+        for (ProductDTO product : products) {
+            List<ScoredCandidate> ranked = rank(product, byCategory, pricePositions, byId,
+                    coPurchaseService.topComplements(product.getId(), CO_PURCHASE_CANDIDATES));
+            for (int i = 0; i < ranked.size(); i++) {
+                ScoredCandidate candidate = ranked.get(i);
+                rows.add(new Object[]{product.getId(), candidate.productId(), candidate.score(), i});
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM related_products");
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO related_products (product_id, related_product_id, score, rank_order) VALUES (?, ?, ?, ?)",
+                    rows);
+        });
+        log.info("Recomputed {} related-product rows for {} products in {} ms",
+                rows.size(), products.size(), System.currentTimeMillis() - start);
+    }
+
+    private List<ScoredCandidate> rank(ProductDTO product,
+            Map<String, List<ProductDTO>> byCategory,
+            Map<Long, Integer> pricePositions,
+            Map<Long, ProductDTO> byId,
+            Map<Long, Double> coPurchased) {
+        Set<Long> candidateIds = new LinkedHashSet<>();
+        List<ProductDTO> sameCategory = byCategory.getOrDefault(product.getCategory(), List.of());
+        Integer position = pricePositions.get(product.getId());
+        if (position != null) {
+            int from = Math.max(0, position - PRICE_WINDOW);
+            int to = Math.min(sameCategory.size(), position + PRICE_WINDOW + 1);
+            sameCategory.subList(from, to).forEach(p -> candidateIds.add(p.getId()));
+        }
+        candidateIds.addAll(coPurchased.keySet());
+        candidateIds.remove(product.getId());
+
+        double maxCoPurchase = Math.log1p(coPurchased.values().stream().mapToDouble(Double::doubleValue).max().orElse(0));
+
+        return candidateIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(candidate -> new ScoredCandidate(candidate.getId(),
+                        score(product, candidate, coPurchased.getOrDefault(candidate.getId(), 0.0), maxCoPurchase)))
+                .sorted(Comparator.comparingDouble(ScoredCandidate::score).reversed()
+                        .thenComparing(ScoredCandidate::productId))
+                .limit(topN)
+                .toList();
+    }
+
+    private static double score(ProductDTO product, ProductDTO candidate, double coPurchaseWeight, double maxCoPurchase) {
+        double category = Objects.equals(product.getCategory(), candidate.getCategory()) ? 1 : 0;
+        double higherPrice = Math.max(product.getPrice(), candidate.getPrice());
+        double price = higherPrice > 0 ? 1 - Math.abs(product.getPrice() - candidate.getPrice()) / higherPrice : 1;
+        double rating = candidate.getRating() != null ? candidate.getRating() / 5 : 0;
+        double coPurchase = maxCoPurchase > 0 ? Math.log1p(coPurchaseWeight) / maxCoPurchase : 0;
+        return CATEGORY_WEIGHT * category
+                + PRICE_WEIGHT * price
+                + RATING_WEIGHT * rating
+                + CO_PURCHASE_WEIGHT * coPurchase;
+    }
+
+    private record ScoredCandidate(Long productId, double score) {
+    }
+}
@@ -0,0 +1,280 @@
+package com.visualai.backend.service;
+
+import com.visualai.backend.dto.SimilarProductDTO;
+import com.visualai.backend.entity.ProductEmbedding;
+import com.visualai.backend.event.ProductChangedEvent;
+import com.visualai.backend.repository.ProductEmbeddingRepository;
+import com.visualai.backend.search.HnswIndex;
+import com.visualai.backend.search.MappedEmbeddingStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process approximate nearest neighbour search over product image
+ * embeddings, so visual search only needs the AI service to encode the query.
+ *
+ * Vectors live off-heap in a {@link MappedEmbeddingStore}; the HNSW graph only
+ * holds row numbers. The instance holding the store's writer lock mirrors
+ * product_embeddings into it, resuming from the watermark saved in the store,
+ * so a restart reopens the file instead of reloading every vector. Other
+ * instances on the host map the same file read-only and follow its changes.
+ */
+@Slf4j
+@Service
+public class VectorSearchService {
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final ProductEmbeddingRepository embeddingRepository;
+    private final Path storeDirectory;
+    private final int dimension;
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double compactDeadRatio;
+    private final double maxTombstoneRatio;
+    // Serializes store writes, syncs and compaction
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile MappedEmbeddingStore store;
+    private volatile HnswIndex index;
+    private LocalDateTime watermark = EPOCH;
+    private volatile boolean ready;
+
+    public VectorSearchService(ProductEmbeddingRepository embeddingRepository,
+            @Value("${vector.store-dir:./data/embeddings}") String storeDirectory,
+            @Value("${vector.dimension:512}") int dimension,
+            @Value("${vector.hnsw.m:16}") int m,
+            @Value("${vector.hnsw.ef-construction:200}") int efConstruction,
+            @Value("${vector.hnsw.ef-search:64}") int efSearch,
+            @Value("${vector.compact-dead-ratio:0.3}") double compactDeadRatio,
+            @Value("${vector.hnsw.max-tombstone-ratio:0.2}") double maxTombstoneRatio) {
+        this.embeddingRepository = embeddingRepository;
+        this.storeDirectory = Path.of(storeDirectory);
+        this.dimension = dimension;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.compactDeadRatio = compactDeadRatio;
+        this.maxTombstoneRatio = maxTombstoneRatio;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<SimilarProductDTO> findSimilar(float[] vector, int k) {
+        return index.search(vector, k, efSearch).stream()
+                .map(match -> new SimilarProductDTO(match.key(),
+                        Math.round(match.similarity() * 10000) / 100.0))
+                .toList();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+        Thread thread = new Thread(this::load, "vector-index-load");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Scheduled(initialDelayString = "${vector.refresh-interval-ms:60000}",
+            fixedDelayString = "${vector.refresh-interval-ms:60000}")
+    public void refresh() {
+        if (!ready) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            if (store.isWritable()) {
+                syncFromDatabase();
+                if (store.deadRatio() > compactDeadRatio) {
+                    compact();
+                }
+            } else if (store.refresh()) {
+                followStore();
+            } else {
+                // The writer compacted the file; map the new one
+                openStore();
+            }
+            if (index.tombstoneRatio() > maxTombstoneRatio) {
+                rebuildIndex();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Refreshing the vector index failed", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() != ProductChangedEvent.Type.DELETED || !ready) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            if (store.isWritable()) {
+                store.remove(event.getProductId());
+            }
+            index.remove(event.getProductId());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            if (store != null) {
+                if (store.isWritable()) {
+                    store.flush();
+                }
+                store.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    void load() {
+        long start = System.currentTimeMillis();
+        writeLock.lock();
+        try {
+            openStore();
+            log.info("Vector index opened {} embeddings from {} ({}) in {} ms", index.size(), storeDirectory,
+                    store.isWritable() ? "writer" : "read-only", System.currentTimeMillis() - start);
+            if (store.isWritable()) {
+                syncFromDatabase();
+            }
+            ready = true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Opening the embedding store failed; similarity search is unavailable", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void openStore() throws IOException {
+        MappedEmbeddingStore opened = MappedEmbeddingStore.open(storeDirectory, dimension);
+        index = buildIndex(opened);
+        MappedEmbeddingStore previous = store;
+        store = opened;
+        if (previous != null) {
+            previous.close();
+        }
+        watermark = fromMicros(opened.syncedUpTo());
+    }
+
+    private HnswIndex buildIndex(MappedEmbeddingStore source) {
+        HnswIndex built = new HnswIndex(source, m, efConstruction);
+        source.liveRows().forEach(built::upsert);
+        return built;
+    }
+
+    // Read-only instances: apply rows the writer appended or tombstoned
+    private void followStore() {
+        Map<Long, Integer> live = store.liveRows();
+        live.forEach(index::upsert);
+        index.keys().stream()
+                .filter(key -> !live.containsKey(key))
+                .forEach(index::remove);
+    }
+
+    private void syncFromDatabase() throws IOException {
+        int applied = 0;
+        if (watermark.equals(EPOCH)) {
+            long afterId = 0;
+            while (true) {
+                List<ProductEmbedding> batch = embeddingRepository
+                        .findLiveAfter(afterId, PageRequest.ofSize(LOAD_BATCH_SIZE));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (ProductEmbedding embedding : batch) {
+                    applied += apply(embedding);
+                }
+                afterId = batch.get(batch.size() - 1).getProductId();
+            }
+        } else {
+            // Re-reads rows stamped exactly at the watermark; unchanged vectors are a no-op
+            for (ProductEmbedding embedding : embeddingRepository.findLiveUpdatedSince(watermark)) {
+                applied += apply(embedding);
+            }
+        }
+        store.setSyncedUpTo(toMicros(watermark));
+        store.flush();
+        if (applied > 0) {
+            log.debug("Applied {} embedding updates", applied);
+        }
+    }
+
+    // Replaced and deleted products leave tombstones that searches must step over
+    private void rebuildIndex() {
+        long start = System.currentTimeMillis();
+        double ratio = index.tombstoneRatio();
+        index = buildIndex(store);
+        log.info("Rebuilt vector index without tombstones ({}% of nodes) in {} ms",
+                Math.round(ratio * 100), System.currentTimeMillis() - start);
+    }
+
+    private void compact() throws IOException {
+        long start = System.currentTimeMillis();
+        MappedEmbeddingStore compacted = store.compact();
+        // Rows were renumbered; searches keep using the old graph and mapping until the swap
+        index = buildIndex(compacted);
+        store = compacted;
+        log.info("Compacted embedding store to {} rows in {} ms",
+                compacted.size(), System.currentTimeMillis() - start);
+    }
+
+    private int apply(ProductEmbedding embedding) throws IOException {
+        if (embedding.getUpdatedAt().isAfter(watermark)) {
+            watermark = embedding.getUpdatedAt();
+        }
+        float[] vector = decode(embedding.getVector());
+        if (vector.length != dimension) {
+            log.warn("Skipping embedding for product {}: {} dimensions", embedding.getProductId(), vector.length);
+            return 0;
+        }
+        try {
+            index.upsert(embedding.getProductId(), store.put(embedding.getProductId(), vector));
+            return 1;
+        } catch (IllegalArgumentException e) {
+            log.warn("Skipping embedding for product {}: {}", embedding.getProductId(), e.getMessage());
+            return 0;
+        }
+    }
+
+    private static float[] decode(byte[] bytes) {
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        return ChronoUnit.MICROS.between(EPOCH, time);
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return EPOCH.plus(micros, ChronoUnit.MICROS);
+    }
+}
@@ -0,0 +1,260 @@
+package com.visualai.backend.service;
+
+import com.visualai.backend.dto.VisualSearchResultDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gathers concurrent visual-search uploads into micro-batches so the AI service
+ * encodes them in one CLIP forward pass instead of one by one.
+ *
+ * A batch is dispatched once it holds {@code visual.gateway.max-batch-size}
+ * uploads or its oldest upload has waited {@code visual.gateway.max-wait-ms}.
+ * At most {@code visual.gateway.max-in-flight} batches call the AI service at
+ * once; while they are busy, new uploads keep queueing and form fuller batches.
+ * The returned embeddings are matched in-process by {@link VectorSearchService}.
+ */
+@Slf4j
+@Service
+public class VisualSearchGateway {
+
+    private final RestClient aiClient;
+    private final VectorSearchService vectorSearchService;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final long timeoutMs;
+    private final int topK;
+    private final BlockingQueue<PendingSearch> queue;
+    private final Semaphore inFlight;
+    private final ExecutorService batchExecutor;
+    private final Timer queueTimer;
+    private final Timer batchTimer;
+    private final DistributionSummary batchSizeSummary;
+    private final Counter rejectedCounter;
+    private volatile boolean running = true;
+
+    public VisualSearchGateway(RestClient.Builder restClientBuilder,
+            VectorSearchService vectorSearchService,
+            MeterRegistry meterRegistry,
+            @Value("${visual.gateway.ai-url:http://127.0.0.1:8001/api}") String aiUrl,
+            @Value("${visual.gateway.max-batch-size:16}") int maxBatchSize,
+            @Value("${visual.gateway.max-wait-ms:10}") long maxWaitMs,
+            @Value("${visual.gateway.max-in-flight:2}") int maxInFlight,
+            @Value("${visual.gateway.queue-capacity:256}") int queueCapacity,
+            @Value("${visual.gateway.timeout-ms:10000}") long timeoutMs,
+            @Value("${visual.gateway.top-k:10}") int topK) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout((int) Math.min(timeoutMs, 2000));
+        requestFactory.setReadTimeout((int) timeoutMs);
+        this.aiClient = restClientBuilder.baseUrl(aiUrl).requestFactory(requestFactory).build();
+        this.vectorSearchService = vectorSearchService;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.timeoutMs = timeoutMs;
+        this.topK = topK;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.inFlight = new Semaphore(maxInFlight);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.batchExecutor = Executors.newFixedThreadPool(maxInFlight, runnable -> {
+            Thread thread = new Thread(runnable, "visual-search-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("visual.gateway.queue.depth", queue, BlockingQueue::size)
+                .description("Visual searches waiting to be batched")
+                .register(meterRegistry);
+        this.queueTimer = Timer.builder("visual.gateway.queue.wait")
+                .description("Time an upload waited before its batch was dispatched")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("visual.gateway.batch.latency")
+                .description("Time spent in the AI service's batch encode call")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("visual.gateway.batch.size")
+                .description("Uploads per dispatched batch")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("visual.gateway.rejected")
+                .description("Visual searches shed because the gateway was saturated")
+                .register(meterRegistry);
+    }
+
+    public VisualSearchResultDTO search(byte[] image, String filename, String contentType) {
+        EncodedImage encoded = encode(image, filename, contentType);
+        return new VisualSearchResultDTO(vectorSearchService.findSimilar(encoded.embedding(), topK),
+                encoded.queueMs(), encoded.batchMs(), encoded.batchSize());
+    }
+
+    /**
+     * Encodes one upload as part of a micro-batch, blocking until its batch returns.
+     */
+    public EncodedImage encode(byte[] image, String filename, String contentType) {
+        PendingSearch pending = new PendingSearch(image, filename, contentType);
+        if (!queue.offer(pending)) {
+            rejectedCounter.increment();
+            throw new VisualSearchOverloadedException();
+        }
+        try {
+            return pending.result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            queue.remove(pending);
+            rejectedCounter.increment();
+            throw new VisualSearchOverloadedException();
+        } catch (InterruptedException e) {
+            queue.remove(pending);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for image encoding", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Image encoding failed", e.getCause());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startDispatcher() {
+        Thread thread = new Thread(this::dispatch, "visual-search-dispatcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        batchExecutor.shutdownNow();
+    }
+
+    private void dispatch() {
+        while (running) {
+            try {
+                // Wait for a free slot first, so uploads arriving meanwhile join the next batch
+                inFlight.acquire();
+                List<PendingSearch> batch = collectBatch();
+                batchExecutor.execute(() -> {
+                    try {
+                        runBatch(batch);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RejectedExecutionException e) {
+                return;
+            }
+        }
+    }
+
+    private List<PendingSearch> collectBatch() throws InterruptedException {
+        List<PendingSearch> batch = new ArrayList<>(maxBatchSize);
+        PendingSearch first = queue.take();
+        batch.add(first);
+        long deadline = first.enqueuedAt + maxWaitNanos;
+        while (batch.size() < maxBatchSize) {
+            if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            PendingSearch next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void runBatch(List<PendingSearch> batch) {
+        long dispatchedAt = System.nanoTime();
+        batchSizeSummary.record(batch.size());
+        batch.forEach(pending -> queueTimer.record(dispatchedAt - pending.enqueuedAt, TimeUnit.NANOSECONDS));
+
+        EncodeBatchResponse response;
+        try {
+            MultipartBodyBuilder body = new MultipartBodyBuilder();
+            for (PendingSearch pending : batch) {
+                body.part("images", new ByteArrayResource(pending.image))
+                        .filename(pending.filename)
+                        .contentType(pending.contentType);
+            }
+            response = aiClient.post()
+                    .uri("/search/encode-batch")
+                    .contentType(MediaType.MULTIPART_FORM_DATA)
+                    .body(body.build())
+                    .retrieve()
+                    .body(EncodeBatchResponse.class);
+            if (response == null || response.embeddings() == null || response.embeddings().size() != batch.size()) {
+                throw new IllegalStateException("AI service returned a malformed batch response");
+            }
+        } catch (RuntimeException e) {
+            log.warn("Visual search batch of {} failed: {}", batch.size(), e.getMessage());
+            batch.forEach(pending -> pending.result.completeExceptionally(e));
+            return;
+        }
+        long batchNanos = System.nanoTime() - dispatchedAt;
+        batchTimer.record(batchNanos, TimeUnit.NANOSECONDS);
+
+        long batchMs = TimeUnit.NANOSECONDS.toMillis(batchNanos);
+        for (int i = 0; i < batch.size(); i++) {
+            PendingSearch pending = batch.get(i);
+            float[] embedding = response.embeddings().get(i);
+            if (embedding == null) {
+                String error = response.errors() != null ? response.errors().get(i) : null;
+                pending.result.completeExceptionally(new IllegalArgumentException(
+                        error != null ? error : "Could not process the uploaded image."));
+                continue;
+            }
+            pending.result.complete(new EncodedImage(embedding,
+                    TimeUnit.NANOSECONDS.toMillis(dispatchedAt - pending.enqueuedAt), batchMs, batch.size()));
+        }
+    }
+
+    /**
+     * CLIP embedding of one upload, with the time it queued and the time its batch took.
+     */
+    public record EncodedImage(float[] embedding, long queueMs, long batchMs, int batchSize) {
+    }
+
+    private record EncodeBatchResponse(List<float[]> embeddings, List<String> errors) {
+    }
+
+    private static final class PendingSearch {
+        final byte[] image;
+        final String filename;
+        final MediaType contentType;
+        final long enqueuedAt = System.nanoTime();
+        final CompletableFuture<EncodedImage> result = new CompletableFuture<>();
+
+        PendingSearch(byte[] image, String filename, String contentType) {
+            this.image = image;
+            this.filename = filename != null ? filename : "upload";
+            this.contentType = contentType != null ? MediaType.parseMediaType(contentType) : MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.visualai.backend.service;
+
+/**
+ * Thrown when the visual search gateway's queue is full or a search cannot be
+ * dispatched in time.
+ */
+public class VisualSearchOverloadedException extends RuntimeException {
+    public VisualSearchOverloadedException() {
+        super("Too many visual searches in flight, please retry shortly");
+    }
+}
@@ -418,3 +418,10 @@ INSERT IGNORE INTO product_sizes (product_id, size_value) VALUES
 (77, 'One Size'),
 (78, 'One Size'), (79, 'S'), (79, 'M'), (79, 'L'),
 (80, 'One Size');
+
+-- Order item ids come from the order_items_seq table; move it past rows
+-- inserted while the column was still AUTO_INCREMENT
+UPDATE order_items_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 1 FROM order_items));
+
+-- No inventory rows are seeded: a product without any stays untracked, sold
+-- by its in_stock flag alone, until real counts are loaded into inventory.
@@ -0,0 +1,151 @@
+package com.visualai.backend.cache;
+
+import com.visualai.backend.cache.CartStore.CartLine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the store's SQL against H2. Tests are not wrapped in a transaction, so
+ * every flush commits or rolls back for real.
+ */
+@DataJpaTest
+@ActiveProfiles("jpatest")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartStoreTest {
+
+    private static final Long ALICE = 1L;
+    private static final Long BOB = 2L;
+    // selected_color and selected_size are VARCHAR(255)
+    private static final String TOO_LONG = "x".repeat(256);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcTemplate jdbcTemplate;
+    // Every batch sent, as "<verb> <rows>"
+    private final List<String> batches = new ArrayList<>();
+    private CartStore cartStore;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        for (Long userId : List.of(ALICE, BOB)) {
+            jdbcTemplate.update("INSERT INTO users (id, name, email, password, role) VALUES (?, ?, ?, ?, 'USER')",
+                    userId, "User " + userId, "user" + userId + "@example.com", "not-a-hash");
+        }
+        for (long productId : new long[]{10, 20, 30, 40}) {
+            jdbcTemplate.update("INSERT INTO products (id, name, price, image, in_stock) VALUES (?, ?, 10, ?, TRUE)",
+                    productId, "Product " + productId, "/images/" + productId + ".jpg");
+        }
+        jdbcTemplate.update("INSERT INTO cart_items (user_id, product_id, quantity, selected_color, selected_size) "
+                + "VALUES (?, 10, 1, 'red', 'M')", ALICE);
+
+        // Records each batch, then runs it
+        JdbcTemplate recording = new JdbcTemplate(dataSource) {
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+                batches.add(sql.substring(0, sql.indexOf(' ')) + " " + batchArgs.size());
+                return super.batchUpdate(sql, batchArgs);
+            }
+        };
+        cartStore = new CartStore(recording, transactionManager, 4, 1_800_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "cart_items", "products", "users");
+    }
+
+    @Test
+    void repeatedEditsBetweenFlushesBecomeOneUpdate() {
+        for (int quantity = 2; quantity <= 11; quantity++) {
+            int q = quantity;
+            cartStore.update(ALICE, lines -> lines.put(10L, lines.get(10L).withQuantity(q)));
+        }
+
+        cartStore.flushDirty();
+
+        assertEquals(List.of("UPDATE 1"), batches);
+        assertEquals(Map.of(10L, 11), rows(ALICE));
+    }
+
+    @Test
+    void flushWritesOnlyTheDifference() {
+        cartStore.update(ALICE, lines -> {
+            lines.remove(10L);
+            return lines.put(20L, new CartLine(null, 20L, 2, null, null));
+        });
+        cartStore.flushDirty();
+        cartStore.flushDirty();
+
+        assertEquals(List.of("DELETE 1", "INSERT 1"), batches);
+        assertEquals(Map.of(20L, 2), rows(ALICE));
+    }
+
+    @Test
+    void badCartIsRetriedAloneAndDroppedAfterRepeatedFailures() {
+        cartStore.getLines(ALICE);
+        cartStore.update(ALICE, lines -> lines.put(30L, new CartLine(null, 30L, 1, TOO_LONG, null)));
+        cartStore.update(BOB, lines -> lines.put(40L, new CartLine(null, 40L, 1, "blue", "L")));
+
+        cartStore.flushDirty();
+
+        assertEquals(Map.of(40L, 1), rows(BOB), "the good cart is written despite the bad one");
+        assertEquals(Map.of(10L, 1), rows(ALICE));
+        assertEquals(2, cartStore.getLines(ALICE).size(), "the bad cart is kept for another try");
+
+        cartStore.flushDirty();
+        cartStore.flushDirty();
+
+        assertEquals(List.of(10L), cartStore.getLines(ALICE).stream().map(CartLine::productId).toList(),
+                "after the last attempt the cart is reloaded from cart_items");
+    }
+
+    @Test
+    void checkoutFlushOfABadCartFails() {
+        cartStore.update(ALICE, lines -> lines.put(30L, new CartLine(null, 30L, 1, null, TOO_LONG)));
+
+        assertThrows(DataIntegrityViolationException.class, () -> cartStore.flush(ALICE));
+        assertEquals(Map.of(10L, 1), rows(ALICE));
+    }
+
+    @Test
+    void updateThatMatchesNoRowReloadsTheCart() {
+        cartStore.update(ALICE, lines -> lines.put(10L, lines.get(10L).withQuantity(5)));
+        // A checkout elsewhere deleted the rows
+        jdbcTemplate.update("DELETE FROM cart_items WHERE user_id = ?", ALICE);
+
+        cartStore.flushDirty();
+
+        assertTrue(cartStore.getLines(ALICE).isEmpty());
+        assertTrue(rows(ALICE).isEmpty());
+    }
+
+    // product_id -> quantity as committed
+    private Map<Long, Integer> rows(Long userId) {
+        Map<Long, Integer> rows = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, quantity FROM cart_items WHERE user_id = ?",
+                rs -> {
+                    rows.put(rs.getLong("product_id"), rs.getInt("quantity"));
+                }, userId);
+        return rows;
+    }
+}
@@ -0,0 +1,102 @@
+package com.visualai.backend.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SingleFlight<String, String> loads;
+
+    @BeforeEach
+    void setUp() {
+        loads = new SingleFlight<>(meterRegistry, "test");
+    }
+
+    @Test
+    void concurrentMissesRunTheLoaderOnce() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = callAll(() -> {
+            runs.incrementAndGet();
+            await(release);
+            return "loaded";
+        });
+        awaitCoalesced(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("loaded", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, runs.get());
+        assertEquals(1.0, count("executed"));
+        assertEquals(CALLERS - 1.0, count("coalesced"));
+    }
+
+    @Test
+    void loaderErrorReachesEveryWaiter() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = callAll(() -> {
+            await(release);
+            throw new StackOverflowError("loader blew up");
+        });
+        awaitCoalesced(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(StackOverflowError.class, e.getCause());
+        }
+    }
+
+    @Test
+    void nothingIsRememberedOnceALoadEnds() {
+        AtomicInteger runs = new AtomicInteger();
+
+        loads.load("key", () -> "v" + runs.incrementAndGet());
+        assertEquals("v2", loads.load("key", () -> "v" + runs.incrementAndGet()));
+        assertEquals(2.0, count("executed"));
+    }
+
+    private List<Future<String>> callAll(Supplier<String> loader) {
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(pool.submit(() -> loads.load("key", loader)));
+        }
+        pool.shutdown();
+        return results;
+    }
+
+    // Holds the loader until every other caller has joined its flight
+    private void awaitCoalesced(int callers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count("coalesced") < callers && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("catalog.cache.loads").tag("outcome", outcome).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
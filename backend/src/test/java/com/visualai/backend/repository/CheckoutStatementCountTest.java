@@ -0,0 +1,113 @@
+package com.visualai.backend.repository;
+
+import com.visualai.backend.entity.*;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Statements per checkout of a 50-line cart, replaying the persistence calls
+ * OrderService.placeOrder makes: read the cart, save the order with its items,
+ * bulk-delete the cart. The inventory claim is a separate JDBC batch written
+ * just before commit and is not part of this count.
+ */
+@DataJpaTest
+@ActiveProfiles("jpatest")
+class CheckoutStatementCountTest {
+
+    private static final int CART_LINES = 50;
+    // Measured on H2: the cart select (products joined in; their collections are
+    // never touched), the order insert, one order_items_seq allocation, the cart
+    // delete and one batched insert for all 50 items
+    private static final long CHECKOUT_STATEMENTS = 5;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long userId;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        User user = entityManager.persist(User.builder()
+                .name("Checkout User")
+                .email("checkout@example.com")
+                .password("$2a$10$notarealhashnotarealhashnotarealhashnotarealhash")
+                .build());
+        userId = user.getId();
+        for (int i = 0; i < CART_LINES; i++) {
+            Product product = entityManager.persist(Product.builder()
+                    .name("Product " + i)
+                    .price(10.0 + i)
+                    .image("/images/" + i + ".jpg")
+                    .category("Shoes")
+                    .inStock(true)
+                    .images(new ArrayList<>(List.of("/images/" + i + "-a.jpg")))
+                    .colors(new ArrayList<>(List.of("#000000")))
+                    .sizes(new ArrayList<>(List.of("M")))
+                    .build());
+            entityManager.persist(CartItem.builder()
+                    .user(user)
+                    .product(product)
+                    .quantity(1 + i % 3)
+                    .selectedColor("#000000")
+                    .selectedSize("M")
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void fiftyLineCheckoutIsAConstantNumberOfStatements() {
+        User user = userRepository.getReferenceById(userId);
+        List<CartItem> cartItems = cartRepository.findByUser(user);
+
+        Order order = Order.builder()
+                .user(user)
+                .subtotal(cartItems.stream().mapToDouble(item -> item.getProduct().getPrice() * item.getQuantity()).sum())
+                .build();
+        for (CartItem cartItem : cartItems) {
+            order.getItems().add(OrderItem.builder()
+                    .order(order)
+                    .productId(cartItem.getProduct().getId())
+                    .productName(cartItem.getProduct().getName())
+                    .productImage(cartItem.getProduct().getImage())
+                    .price(cartItem.getProduct().getPrice())
+                    .quantity(cartItem.getQuantity())
+                    .selectedColor(cartItem.getSelectedColor())
+                    .selectedSize(cartItem.getSelectedSize())
+                    .build());
+        }
+        orderRepository.save(order);
+        cartRepository.deleteByUser(user);
+        entityManager.flush();
+
+        assertEquals(CART_LINES, cartItems.size());
+        assertEquals(CART_LINES + 1, statistics.getEntityInsertCount());
+        assertEquals(CHECKOUT_STATEMENTS, statistics.getPrepareStatementCount());
+    }
+}
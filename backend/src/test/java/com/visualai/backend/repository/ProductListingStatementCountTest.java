@@ -0,0 +1,96 @@
+package com.visualai.backend.repository;
+
+import com.visualai.backend.entity.Product;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A product listing is one select for the products plus one subselect per
+ * element collection (images, colors, sizes), however many products it returns.
+ */
+@DataJpaTest
+@ActiveProfiles("jpatest")
+class ProductListingStatementCountTest {
+
+    private static final int PRODUCTS = 1_000;
+    private static final long LISTING_STATEMENTS = 4;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < PRODUCTS; i++) {
+            entityManager.persist(Product.builder()
+                    .name("Product " + i)
+                    .description("Description " + i)
+                    .price(10.0 + i)
+                    .image("/images/" + i + ".jpg")
+                    .category(i % 2 == 0 ? "Shoes" : "Bags")
+                    .inStock(true)
+                    .images(new ArrayList<>(List.of("/images/" + i + "-a.jpg", "/images/" + i + "-b.jpg")))
+                    .colors(new ArrayList<>(List.of("#000000", "#ffffff")))
+                    .sizes(new ArrayList<>(List.of("S", "M", "L")))
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findAllLoadsCollectionsWithOneStatementEach() {
+        List<Product> products = productRepository.findAll();
+
+        assertEquals(PRODUCTS, products.size());
+        assertEquals(PRODUCTS * 7, countCollectionElements(products));
+        assertEquals(LISTING_STATEMENTS, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findByCategoryLoadsCollectionsWithOneStatementEach() {
+        List<Product> products = productRepository.findByCategory("Shoes");
+
+        assertEquals(PRODUCTS / 2, products.size());
+        assertEquals(PRODUCTS / 2 * 7, countCollectionElements(products));
+        assertEquals(LISTING_STATEMENTS, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void keysetPageLoadsCollectionsWithOneStatementEach() {
+        List<Product> products = productRepository.findPageAfter(0L, null, null, null, PageRequest.ofSize(100));
+
+        assertEquals(100, products.size());
+        assertEquals(100 * 7, countCollectionElements(products));
+        assertEquals(LISTING_STATEMENTS, statistics.getPrepareStatementCount());
+    }
+
+    // Touches every collection the way ProductService.toDTO does
+    private static int countCollectionElements(List<Product> products) {
+        int elements = 0;
+        for (Product product : products) {
+            elements += product.getImages().size() + product.getColors().size() + product.getSizes().size();
+        }
+        return elements;
+    }
+}
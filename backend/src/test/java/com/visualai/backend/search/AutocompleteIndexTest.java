@@ -0,0 +1,114 @@
+package com.visualai.backend.search;
+
+import com.visualai.backend.dto.ProductDTO;
+import com.visualai.backend.dto.SuggestionDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AutocompleteIndexTest {
+
+    private AutocompleteIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AutocompleteIndex(3, 100);
+        index.rebuild(List.of(
+                product(1L, "Cotton Shirt", "Clothing", 4.5, 120),
+                product(2L, "Linen Shirt", "Clothing", 4.0, 10),
+                product(3L, "Leather Boots", "Shoes", 5.0, 300)));
+    }
+
+    @Test
+    void completesFromEveryWordStart() {
+        assertEquals(List.of("Cotton Shirt", "Linen Shirt"), texts(index.suggest("shirt", 10)));
+        assertEquals(List.of("Cotton Shirt"), texts(index.suggest("cotton", 10)));
+        assertEquals(List.of("Clothing"), texts(index.suggest("cloth", 10)));
+    }
+
+    @Test
+    void correctsOneTypoBelowExactMatches() {
+        List<SuggestionDTO> suggestions = index.suggest("leathr", 10);
+
+        assertEquals(List.of("Leather Boots"), texts(suggestions));
+        assertEquals("product", suggestions.get(0).getType());
+        assertEquals(Long.valueOf(3), suggestions.get(0).getProductId());
+    }
+
+    @Test
+    void upsertReplacesTheOldNameAndRemoveDeletesIt() {
+        index.upsert(product(1L, "Cotton Hoodie", "Clothing", 4.5, 120));
+
+        assertEquals(List.of("Linen Shirt"), texts(index.suggest("shirt", 10)));
+        assertEquals(List.of("Cotton Hoodie"), texts(index.suggest("hood", 10)));
+
+        index.remove(3L);
+
+        assertTrue(index.suggest("leather", 10).isEmpty());
+        assertTrue(index.suggest("shoes", 10).isEmpty(), "a category with no products is dropped");
+    }
+
+    @Test
+    void queriesAreSuggestedOnceSearchedEnough() {
+        index.recordQuery("Wool socks");
+        index.recordQuery("wool socks");
+        assertTrue(index.suggest("wool", 10).isEmpty());
+
+        index.recordQuery("wool socks");
+        List<SuggestionDTO> suggestions = index.suggest("wool", 10);
+        assertEquals(List.of("wool socks"), texts(suggestions));
+        double weight = suggestions.get(0).getScore();
+
+        // Count 4 is the next power of two, so the weight moves; 5 to 7 leave it alone
+        index.recordQuery("wool socks");
+        double doubled = index.suggest("wool", 10).get(0).getScore();
+        assertTrue(doubled > weight);
+        index.recordQuery("wool socks");
+        assertEquals(doubled, index.suggest("wool", 10).get(0).getScore(), 1e-9);
+    }
+
+    @Test
+    void suggestedQueriesSurviveRebuild() {
+        for (int i = 0; i < 3; i++) {
+            index.recordQuery("wool socks");
+        }
+
+        index.rebuild(List.of(product(1L, "Cotton Shirt", "Clothing", 4.5, 120)));
+
+        assertEquals(List.of("wool socks"), texts(index.suggest("socks", 10)));
+    }
+
+    @Test
+    void fullTrackerEvictsTheLeastSearchedQueries() {
+        for (int i = 0; i < 3; i++) {
+            index.recordQuery("popular query");
+        }
+        for (int i = 0; i < 99; i++) {
+            index.recordQuery("rare query " + i);
+        }
+
+        for (int i = 0; i < 3; i++) {
+            index.recordQuery("newcomer query");
+        }
+
+        assertEquals(List.of("newcomer query"), texts(index.suggest("newcomer", 10)));
+        assertEquals(List.of("popular query"), texts(index.suggest("popular", 10)));
+    }
+
+    private static List<String> texts(List<SuggestionDTO> suggestions) {
+        return suggestions.stream().map(SuggestionDTO::getText).toList();
+    }
+
+    private static ProductDTO product(Long id, String name, String category, double rating, int reviews) {
+        return ProductDTO.builder()
+                .id(id)
+                .name(name)
+                .category(category)
+                .rating(rating)
+                .reviews(reviews)
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.visualai.backend.search;
+
+import com.visualai.backend.dto.ProductDTO;
+import com.visualai.backend.search.CategoryStatsIndex.CategoryStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategoryStatsIndexTest {
+
+    private CategoryStatsIndex index;
+    private int changes;
+
+    @BeforeEach
+    void setUp() {
+        index = new CategoryStatsIndex(event -> changes++);
+        index.rebuild(List.of(
+                product(1L, "Shoes", 50.0, true),
+                product(2L, "Shoes", 80.0, false)));
+    }
+
+    @Test
+    void writesKeepTheStatsCurrent() {
+        index.upsert(product(3L, "Shoes", 20.0, true));
+        index.remove(2L);
+
+        assertEquals(new CategoryStats(2, 2, 20.0, 50.0), index.getStats().get("Shoes"));
+        assertEquals(3, changes, "the build and each write are announced");
+    }
+
+    @Test
+    void rebuildFromProductsReadBeforeAWriteIsSkipped() {
+        long version = index.version();
+        // Read before product 3 was written
+        List<ProductDTO> products = List.of(
+                product(1L, "Shoes", 50.0, true),
+                product(2L, "Shoes", 80.0, false));
+        index.upsert(product(3L, "Shoes", 20.0, true));
+
+        assertFalse(index.rebuildIfUnchanged(products, version));
+        assertEquals(new CategoryStats(3, 2, 20.0, 80.0), index.getStats().get("Shoes"));
+        assertEquals(2, changes, "a skipped rebuild changes nothing");
+    }
+
+    @Test
+    void rebuildWithNoWriteSinceIsApplied() {
+        long version = index.version();
+
+        assertTrue(index.rebuildIfUnchanged(List.of(product(1L, "Shoes", 50.0, true)), version));
+        assertEquals(new CategoryStats(1, 1, 50.0, 50.0), index.getStats().get("Shoes"));
+        assertEquals(2, changes);
+    }
+
+    private static ProductDTO product(Long id, String category, Double price, boolean inStock) {
+        return ProductDTO.builder().id(id).name("Product " + id).category(category).price(price).inStock(inStock).build();
+    }
+}
@@ -0,0 +1,154 @@
+package com.visualai.backend.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswIndexTest {
+
+    private static final int DIMENSION = 32;
+    private static final int ROWS = 2_000;
+    private static final int QUERIES = 100;
+    private static final int K = 10;
+    private static final int EF = 64;
+
+    @Test
+    void recallMatchesBruteForce() {
+        InMemoryVectors vectors = new InMemoryVectors(randomVectors(ROWS, 1));
+        HnswIndex index = new HnswIndex(vectors, 16, 200);
+        for (int row = 0; row < ROWS; row++) {
+            index.upsert(row, row);
+        }
+
+        double recall = recall(index, vectors, allKeys(ROWS), randomVectors(QUERIES, 2));
+
+        assertTrue(recall >= 0.95, "recall@" + K + " was " + recall);
+    }
+
+    @Test
+    void searchStillReturnsKLiveResultsWhenMostNodesAreTombstones() {
+        InMemoryVectors vectors = new InMemoryVectors(randomVectors(ROWS, 3));
+        HnswIndex index = new HnswIndex(vectors, 16, 200);
+        for (int row = 0; row < ROWS; row++) {
+            index.upsert(row, row);
+        }
+        Set<Long> live = new HashSet<>();
+        for (int row = 0; row < ROWS; row++) {
+            if (row % 4 == 0) {
+                live.add((long) row);
+            } else {
+                index.remove(row);
+            }
+        }
+
+        assertEquals(0.75, index.tombstoneRatio(), 1e-9);
+        for (float[] query : randomVectors(QUERIES, 4)) {
+            List<HnswIndex.Match> matches = index.search(query, K, EF);
+            assertEquals(K, matches.size());
+            assertTrue(matches.stream().allMatch(match -> live.contains(match.key())));
+        }
+        double recall = recall(index, vectors, live, randomVectors(QUERIES, 5));
+        assertTrue(recall >= 0.9, "recall@" + K + " with tombstones was " + recall);
+    }
+
+    @Test
+    void repointingAKeyTombstonesItsOldNode() {
+        float[][] rows = randomVectors(3, 6);
+        HnswIndex index = new HnswIndex(new InMemoryVectors(rows), 16, 200);
+        index.upsert(7L, 0);
+        index.upsert(8L, 1);
+
+        index.upsert(7L, 0);
+        assertEquals(0.0, index.tombstoneRatio(), 1e-9);
+
+        index.upsert(7L, 2);
+        assertEquals(2, index.size());
+        assertEquals(1.0 / 3, index.tombstoneRatio(), 1e-9);
+        assertEquals(7L, index.search(rows[2], 1, EF).get(0).key());
+    }
+
+    private static double recall(HnswIndex index, InMemoryVectors vectors, Set<Long> live, float[][] queries) {
+        int found = 0;
+        for (float[] query : queries) {
+            Set<Long> expected = bruteForce(vectors, live, query);
+            found += (int) index.search(query, K, EF).stream()
+                    .filter(match -> expected.contains(match.key()))
+                    .count();
+        }
+        return (double) found / (queries.length * K);
+    }
+
+    private static Set<Long> bruteForce(InMemoryVectors vectors, Set<Long> live, float[] query) {
+        float[] normalized = normalize(query);
+        return live.stream()
+                .sorted(Comparator.comparingDouble((Long key) -> vectors.dot(key.intValue(), normalized)).reversed())
+                .limit(K)
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<Long> allKeys(int rows) {
+        Set<Long> keys = new HashSet<>();
+        for (long key = 0; key < rows; key++) {
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    private static float[][] randomVectors(int count, long seed) {
+        Random random = new Random(seed);
+        float[][] vectors = new float[count][DIMENSION];
+        for (float[] vector : vectors) {
+            for (int i = 0; i < DIMENSION; i++) {
+                vector[i] = (float) random.nextGaussian();
+            }
+        }
+        return vectors;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    private static final class InMemoryVectors implements VectorSource {
+        private final float[][] rows;
+
+        InMemoryVectors(float[][] rows) {
+            this.rows = new float[rows.length][];
+            for (int i = 0; i < rows.length; i++) {
+                this.rows[i] = normalize(rows[i]);
+            }
+        }
+
+        @Override
+        public int dimension() {
+            return DIMENSION;
+        }
+
+        @Override
+        public double dot(int row, float[] query) {
+            double sum = 0;
+            for (int i = 0; i < DIMENSION; i++) {
+                sum += rows[row][i] * query[i];
+            }
+            return sum;
+        }
+
+        @Override
+        public double dot(int rowA, int rowB) {
+            return dot(rowA, rows[rowB]);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.visualai.backend.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedEmbeddingStoreTest {
+
+    private static final int DIMENSION = 4;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void putStoresNormalizedVectorAndReplacingTombstonesTheOldRow() throws IOException {
+        try (MappedEmbeddingStore store = MappedEmbeddingStore.open(directory, DIMENSION)) {
+            int first = store.put(7, new float[]{3, 4, 0, 0});
+            assertEquals(0.6, store.vector(first).get(0), 1e-6);
+            assertEquals(0.8, store.vector(first).get(1), 1e-6);
+
+            assertEquals(first, store.put(7, new float[]{6, 8, 0, 0}), "same direction keeps its row");
+
+            int second = store.put(7, new float[]{0, 0, 1, 0});
+            assertNotEquals(first, second);
+            assertEquals(1, store.size());
+            assertEquals(0.5, store.deadRatio(), 1e-9);
+            assertEquals(1.0, store.dot(second, new float[]{0, 0, 1, 0}), 1e-6);
+        }
+    }
+
+    @Test
+    void removeTombstonesTheRow() throws IOException {
+        try (MappedEmbeddingStore store = MappedEmbeddingStore.open(directory, DIMENSION)) {
+            store.put(1, new float[]{1, 0, 0, 0});
+            store.put(2, new float[]{0, 1, 0, 0});
+
+            assertTrue(store.remove(1));
+            assertFalse(store.remove(1));
+            assertEquals(Map.of(2L, 1), store.liveRows());
+        }
+    }
+
+    @Test
+    void reopenKeepsLiveRowsAndWatermark() throws IOException {
+        try (MappedEmbeddingStore store = MappedEmbeddingStore.open(directory, DIMENSION)) {
+            store.put(1, new float[]{1, 0, 0, 0});
+            store.put(2, new float[]{0, 1, 0, 0});
+            store.remove(1);
+            store.setSyncedUpTo(42);
+            store.flush();
+        }
+        try (MappedEmbeddingStore store = MappedEmbeddingStore.open(directory, DIMENSION)) {
+            assertEquals(Map.of(2L, 1), store.liveRows());
+            assertEquals(42, store.syncedUpTo());
+            assertEquals(1.0, store.dot(1, new float[]{0, 1, 0, 0}), 1e-6);
+        }
+    }
+
+    @Test
+    void compactDropsTombstonesAndRenumbersRows() throws IOException {
+        MappedEmbeddingStore store = MappedEmbeddingStore.open(directory, DIMENSION);
+        store.put(1, new float[]{1, 0, 0, 0});
+        store.put(2, new float[]{0, 1, 0, 0});
+        store.put(3, new float[]{0, 0, 1, 0});
+        store.remove(2);
+        store.setSyncedUpTo(9);
+
+        try (MappedEmbeddingStore compacted = store.compact()) {
+            assertFalse(store.refresh(), "the old store is retired");
+            assertEquals(Map.of(1L, 0, 3L, 1), compacted.liveRows());
+            assertEquals(0.0, compacted.deadRatio(), 1e-9);
+            assertEquals(9, compacted.syncedUpTo());
+            FloatBuffer third = compacted.vector(1);
+            assertEquals(1.0, third.get(2), 1e-6);
+        }
+    }
+
+    @Test
+    void rowsSpanSegmentBoundaries() throws IOException {
+        try (MappedEmbeddingStore store = MappedEmbeddingStore.open(directory, DIMENSION)) {
+            int rows = MappedEmbeddingStore.SEGMENT_ROWS + 2;
+            for (int id = 0; id < rows; id++) {
+                store.put(id, new float[]{1, id, 0, 0});
+            }
+
+            int last = store.liveRows().get((long) rows - 1);
+            assertEquals(rows - 1, last);
+            assertEquals(1.0, store.dot(last, last), 1e-6);
+            assertEquals(Math.sqrt(1 + (double) (rows - 1) * (rows - 1)),
+                    store.dot(last, new float[]{1, rows - 1, 0, 0}), 1e-2);
+        }
+    }
+
+    @Test
+    void rejectsDimensionTooWideForASegment() {
+        assertThrows(IllegalArgumentException.class, () -> MappedEmbeddingStore.open(directory, 10_000));
+    }
+
+    @Test
+    void rejectsWrongDimensionAndZeroVectors() throws IOException {
+        try (MappedEmbeddingStore store = MappedEmbeddingStore.open(directory, DIMENSION)) {
+            assertThrows(IllegalArgumentException.class, () -> store.put(1, new float[]{1, 0}));
+            assertThrows(IllegalArgumentException.class, () -> store.put(1, new float[DIMENSION]));
+        }
+    }
+}
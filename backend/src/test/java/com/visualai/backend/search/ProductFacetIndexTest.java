@@ -0,0 +1,114 @@
+package com.visualai.backend.search;
+
+import com.visualai.backend.dto.FacetSearchResultDTO;
+import com.visualai.backend.dto.ProductDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductFacetIndexTest {
+
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductFacetIndex();
+        index.rebuild(List.of(
+                product(1L, "Shoes", 40.0, 4.6, true, List.of("Black"), List.of("9", "10")),
+                product(2L, "Shoes", 120.0, 4.1, false, List.of("Brown"), List.of("10")),
+                product(3L, "Clothing", 60.0, 3.2, true, List.of("Black", "White"), List.of("M")),
+                product(4L, "Clothing", 600.0, null, true, List.of("White"), List.of("L"))));
+    }
+
+    @Test
+    void valuesOfOneFacetAreOredAndFacetsAreAnded() {
+        FacetSearchResultDTO result = index.filter(Map.of(
+                ProductFacetIndex.COLOR, List.of("Black", "Brown"),
+                ProductFacetIndex.IN_STOCK, List.of("true")), 0, 10);
+
+        assertEquals(List.of(1L, 3L), ids(result.getProducts()));
+        assertEquals(2, result.getTotal());
+    }
+
+    @Test
+    void countsIgnoreTheFacetsOwnSelection() {
+        FacetSearchResultDTO result = index.filter(Map.of(ProductFacetIndex.CATEGORY, List.of("Shoes")), 0, 10);
+
+        assertEquals(Map.of("Clothing", 2, "Shoes", 2), result.getFacets().get(ProductFacetIndex.CATEGORY));
+        assertEquals(Map.of("Black", 1, "Brown", 1, "White", 0), result.getFacets().get(ProductFacetIndex.COLOR));
+        assertEquals(Map.of("3-up", 2, "4-up", 2, "4.5-up", 1), result.getFacets().get(ProductFacetIndex.RATING));
+    }
+
+    @Test
+    void pagesFollowOffsetAndLimit() {
+        FacetSearchResultDTO result = index.filter(Map.of(), 1, 2);
+
+        assertEquals(List.of(2L, 3L), ids(result.getProducts()));
+        assertEquals(4, result.getTotal());
+    }
+
+    @Test
+    void priceBucketsAreHalfOpen() {
+        assertEquals("0-50", ProductFacetIndex.priceBucket(49.99));
+        assertEquals("50-100", ProductFacetIndex.priceBucket(50));
+        assertEquals("500-up", ProductFacetIndex.priceBucket(500));
+    }
+
+    @Test
+    void upsertMovesAProductBetweenValues() {
+        index.upsert(product(2L, "Shoes", 120.0, 4.1, true, List.of("Black"), List.of("10")));
+
+        assertEquals(List.of(1L, 2L), ids(index.filter(Map.of(
+                ProductFacetIndex.CATEGORY, List.of("Shoes"),
+                ProductFacetIndex.COLOR, List.of("Black")), 0, 10).getProducts()));
+        assertFalse(index.filter(Map.of(), 0, 10).getFacets().get(ProductFacetIndex.COLOR).containsKey("Brown"),
+                "a value no product carries any more is dropped");
+    }
+
+    @Test
+    void removedProductsLeaveResultsMatcherAndSelect() {
+        Predicate<Long> before = index.matcher(Map.of(ProductFacetIndex.CATEGORY, List.of("Shoes")));
+        assertTrue(before.test(1L));
+        assertFalse(before.test(3L));
+
+        index.remove(1L);
+
+        assertEquals(List.of(2L), ids(index.filter(Map.of(ProductFacetIndex.CATEGORY, List.of("Shoes")), 0, 10)
+                .getProducts()));
+        assertEquals(List.of(4L, 2L), ids(index.select(List.of(4L, 1L, 2L), Map.of())));
+        assertFalse(index.matcher(Map.of(ProductFacetIndex.CATEGORY, List.of("Shoes"))).test(1L));
+    }
+
+    @Test
+    void freedOrdinalsAreReused() {
+        index.remove(2L);
+        // Churn: each new product replaces the previous one
+        for (long id = 100; id <= 198; id++) {
+            index.upsert(product(id, "Bags", 30.0, 4.0, true, List.of("Red"), List.of()));
+            if (id > 100) {
+                index.remove(id - 1);
+            }
+        }
+
+        assertEquals(4, index.ordinalCount());
+        // Results follow ordinals, so the survivor sits in the slot product 2 left
+        assertEquals(List.of(1L, 198L, 3L, 4L), ids(index.filter(Map.of(), 0, 10).getProducts()));
+        assertEquals(List.of(198L), ids(index.filter(Map.of(ProductFacetIndex.COLOR, List.of("Red")), 0, 10)
+                .getProducts()));
+    }
+
+    private static List<Long> ids(List<ProductDTO> products) {
+        return products.stream().map(ProductDTO::getId).toList();
+    }
+
+    private static ProductDTO product(Long id, String category, Double price, Double rating, boolean inStock,
+            List<String> colors, List<String> sizes) {
+        return ProductDTO.builder().id(id).name("Product " + id).category(category).price(price).rating(rating)
+                .inStock(inStock).colors(colors).sizes(sizes).build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.visualai.backend.search;
+
+import com.visualai.backend.dto.ProductDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.rebuild(List.of(
+                product(1L, "Leather Boots", "Waterproof boots for hiking trails"),
+                product(2L, "Canvas Sneakers", "Light shoes that pair with leather belts"),
+                product(3L, "Leather Wallet", "Slim leather wallet, leather lined, with leather trim"),
+                product(4L, "Wool Scarf", "Warm scarf for winter")));
+    }
+
+    @Test
+    void nameMatchesOutrankDescriptionMatches() {
+        // The wallet also repeats the term in its description
+        assertEquals(List.of(3L, 1L, 2L), ids(index.search("leather", 10)));
+    }
+
+    @Test
+    void rareTermsWeighMoreThanCommonOnes() {
+        // "hiking" is in one product and "leather" in three, so the boots win
+        // even though the wallet mentions leather more often
+        assertEquals(Long.valueOf(1), ids(index.search("leather hiking", 10)).get(0));
+    }
+
+    @Test
+    void lastTermIsAPrefix() {
+        assertEquals(List.of(2L), ids(index.search("sneak", 10)));
+        assertEquals(List.of(4L), ids(index.search("wool sc", 10)));
+        // Only the last term expands: "sneak" first matches nothing
+        assertEquals(List.of(4L), ids(index.search("sneak wool", 10)));
+    }
+
+    @Test
+    void limitAndFilterApplyToTheRankedList() {
+        assertEquals(List.of(3L), ids(index.search("leather", 1)));
+        assertEquals(List.of(2L), ids(index.search("leather", 1, id -> id == 2L)),
+                "the filter runs before the limit");
+        assertTrue(index.search("!!!", 10).isEmpty());
+    }
+
+    @Test
+    void upsertReindexesAndRemoveDrops() {
+        index.upsert(product(4L, "Leather Gloves", "Warm gloves for winter"));
+        assertTrue(ids(index.search("leather", 10)).contains(4L));
+        assertTrue(index.search("scarf", 10).isEmpty(), "the old name is no longer indexed");
+
+        index.remove(1L);
+        assertTrue(index.search("hiking", 10).isEmpty());
+        assertFalse(ids(index.search("boots", 10)).contains(1L));
+    }
+
+    private static List<Long> ids(List<ProductDTO> products) {
+        return products.stream().map(ProductDTO::getId).toList();
+    }
+
+    private static ProductDTO product(Long id, String name, String description) {
+        return ProductDTO.builder().id(id).name(name).description(description).build();
+    }
+}
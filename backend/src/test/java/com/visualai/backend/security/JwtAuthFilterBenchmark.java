@@ -0,0 +1,120 @@
+package com.visualai.backend.security;
+
+import com.visualai.backend.entity.User;
+import com.visualai.backend.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.crypto.SecretKey;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating a bearer token.
+ *
+ * {@code before} replays the original filter: a new parser for each of two
+ * parses ({@code validateToken}, then {@code getEmailFromToken}) and a user
+ * lookup per request. {@code after} runs {@link JwtAuthFilter} as it is now:
+ * one parse and a warm {@link PrincipalCache}. The lookup is an in-memory
+ * stand-in for {@code findByEmail}, so the gap shown is CPU only; in production
+ * the removed MySQL round trip comes on top of it.
+ *
+ * Not part of the test run. Run {@link #main} on the test classpath after
+ * {@code mvn test-compile}, e.g. from the IDE.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthFilterBenchmark {
+
+    private static final String SECRET = "SmartEcommerceVisualAI2024SecretKey1234567890AbCd";
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    private SecretKey key;
+    private UserRepository userRepository;
+    private JwtAuthFilter filter;
+    private String token;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        User user = User.builder()
+                .id(1L)
+                .name("Bench User")
+                .email("bench@example.com")
+                .password("$2a$10$notarealhashnotarealhashnotarealhashnotarealhash")
+                .build();
+        userRepository = (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findByEmail")) {
+                        return user.getEmail().equals(args[0]) ? Optional.of(user) : Optional.empty();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+
+        JwtUtil jwtUtil = new JwtUtil(SECRET, TimeUnit.HOURS.toMillis(1));
+        filter = new JwtAuthFilter(jwtUtil, userRepository, new PrincipalCache(TimeUnit.HOURS.toMillis(1), 10_000));
+        token = jwtUtil.generateToken(user.getEmail(), user.getRole());
+
+        request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Authentication before() {
+        try {
+            parseWithNewParser(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        String email = parseWithNewParser(token).getSubject();
+        User user = userRepository.findByEmail(email).orElse(null);
+        if (user == null) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(user, null,
+                List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole())));
+    }
+
+    @Benchmark
+    public Authentication after() throws Exception {
+        filter.doFilterInternal(request, response, NO_OP_CHAIN);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    private Claims parseWithNewParser(String token) {
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtAuthFilterBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
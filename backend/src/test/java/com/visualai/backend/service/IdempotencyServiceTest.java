@@ -0,0 +1,167 @@
+package com.visualai.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the service against the idempotency_keys table in H2. The action's own
+ * write is an inventory row per placed order, so tests can see whether it
+ * committed together with the stored response.
+ */
+@DataJpaTest
+@ActiveProfiles("jpatest")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyServiceTest {
+
+    private static final Long USER = 7L;
+    private static final String KEY = "checkout-1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicInteger orders = new AtomicInteger();
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = service();
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "idempotency_keys", "inventory");
+    }
+
+    @Test
+    void repeatOnAnotherInstanceReplaysTheStoredResponse() {
+        ResponseEntity<?> first = idempotencyService.execute(USER, KEY, this::placeOrder);
+        // A fresh service has an empty cache, like another instance or a restart
+        ResponseEntity<?> replayed = service().execute(USER, KEY, this::placeOrder);
+
+        assertEquals(1, orders.get());
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals(HttpStatus.OK, replayed.getStatusCode());
+        assertEquals("true", replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals("{\"orderId\":1}", replayed.getBody());
+    }
+
+    @Test
+    void concurrentDuplicatesRunTheActionOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<ResponseEntity<?>>> responses = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            responses.add(pool.submit(() -> idempotencyService.execute(USER, KEY, () -> {
+                await(release);
+                return placeOrder();
+            })));
+        }
+        Thread.sleep(100);
+        release.countDown();
+        for (Future<ResponseEntity<?>> response : responses) {
+            assertEquals(HttpStatus.OK, response.get().getStatusCode());
+        }
+        pool.shutdown();
+
+        assertEquals(1, orders.get());
+        assertEquals(1, JdbcTestUtils.countRowsInTable(jdbcTemplate, "inventory"));
+    }
+
+    @Test
+    void responseCommitsWithTheActionsWrites() {
+        idempotencyService.execute(USER, KEY, this::placeOrder);
+
+        assertEquals(1, JdbcTestUtils.countRowsInTable(jdbcTemplate, "inventory"));
+        assertEquals(Integer.valueOf(200), jdbcTemplate.queryForObject(
+                "SELECT status_code FROM idempotency_keys WHERE user_id = ? AND idem_key = ?",
+                Integer.class, USER, KEY));
+    }
+
+    @Test
+    void failedResponseReleasesTheKeyAndRollsBack() {
+        ResponseEntity<?> rejected = idempotencyService.execute(USER, KEY, () -> {
+            placeOrder();
+            return ResponseEntity.badRequest().body(Map.of("error", "Cart is empty"));
+        });
+
+        assertEquals(HttpStatus.BAD_REQUEST, rejected.getStatusCode());
+        assertEquals(0, JdbcTestUtils.countRowsInTable(jdbcTemplate, "idempotency_keys"));
+        assertEquals(0, JdbcTestUtils.countRowsInTable(jdbcTemplate, "inventory"));
+
+        idempotencyService.execute(USER, KEY, this::placeOrder);
+        assertEquals(1, JdbcTestUtils.countRowsInTable(jdbcTemplate, "inventory"));
+    }
+
+    @Test
+    void pendingClaimIsAConflictUntilItGoesStale() {
+        claimedElsewhere(LocalDateTime.now());
+        assertThrows(IdempotencyConflictException.class,
+                () -> idempotencyService.execute(USER, KEY, this::placeOrder));
+        assertEquals(0, orders.get());
+
+        jdbcTemplate.update("UPDATE idempotency_keys SET created_at = ? WHERE user_id = ? AND idem_key = ?",
+                LocalDateTime.now().minusMinutes(5), USER, KEY);
+        assertEquals(HttpStatus.OK, idempotencyService.execute(USER, KEY, this::placeOrder).getStatusCode());
+        assertEquals(1, orders.get());
+    }
+
+    @Test
+    void claimTakenOverMidActionRollsTheActionBack() {
+        assertThrows(IdempotencyConflictException.class, () -> idempotencyService.execute(USER, KEY, () -> {
+            ResponseEntity<?> response = placeOrder();
+            // Another instance judged this claim dead and cleared it, on its own connection
+            CompletableFuture.runAsync(() -> jdbcTemplate.update(
+                    "DELETE FROM idempotency_keys WHERE user_id = ? AND idem_key = ?", USER, KEY)).join();
+            return response;
+        }));
+
+        assertEquals(0, JdbcTestUtils.countRowsInTable(jdbcTemplate, "inventory"));
+    }
+
+    // Writes inside the action's transaction, like the order insert would
+    private ResponseEntity<?> placeOrder() {
+        int orderId = orders.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO inventory (product_id, color, size, quantity) VALUES (?, '', '', 1)", orderId);
+        return ResponseEntity.ok(Map.of("orderId", orderId));
+    }
+
+    private void claimedElsewhere(LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO idempotency_keys (user_id, idem_key, created_at) VALUES (?, ?, ?)",
+                USER, KEY, createdAt);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private IdempotencyService service() {
+        return new IdempotencyService(jdbcTemplate, new ObjectMapper(), transactionManager,
+                24, 100, 5_000, 60_000);
+    }
+}
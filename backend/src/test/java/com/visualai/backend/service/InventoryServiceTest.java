@@ -0,0 +1,197 @@
+package com.visualai.backend.service;
+
+import com.visualai.backend.entity.CartItem;
+import com.visualai.backend.entity.InventoryItem;
+import com.visualai.backend.entity.Product;
+import com.visualai.backend.repository.InventoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the service against the inventory table in H2. Each order is a real
+ * transaction, so claims are written by the service's own conditional UPDATE
+ * before commit.
+ */
+@DataJpaTest
+@ActiveProfiles("jpatest")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryServiceTest {
+
+    private static final Product SHIRT = product(1L, "Shirt");
+    private static final Product BOOTS = product(2L, "Boots");
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    // Product ids of every inventory lookup the service made
+    private final List<Collection<Long>> lookups = new CopyOnWriteArrayList<>();
+    private InventoryService inventoryService;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        inventoryRepository.save(row(SHIRT, 5));
+        inventoryRepository.save(row(BOOTS, 2));
+        inventoryService = service(600_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "inventory");
+    }
+
+    @Test
+    void committedClaimIsWrittenAndStaysTaken() {
+        order(line(SHIRT, 3));
+
+        assertEquals(2, quantity(SHIRT));
+        assertThrows(OutOfStockException.class, () -> order(line(SHIRT, 3)));
+        order(line(SHIRT, 2));
+        assertEquals(0, quantity(SHIRT));
+    }
+
+    @Test
+    void rolledBackClaimIsHandedBack() {
+        transaction.executeWithoutResult(status -> {
+            inventoryService.reserve(List.of(line(SHIRT, 5)));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(5, quantity(SHIRT));
+        order(line(SHIRT, 5));
+    }
+
+    @Test
+    void failedLineReleasesTheLinesAlreadyClaimed() {
+        assertThrows(OutOfStockException.class, () -> order(line(SHIRT, 4), line(BOOTS, 3)));
+
+        order(line(SHIRT, 5), line(BOOTS, 2));
+        assertEquals(0, quantity(SHIRT));
+        assertEquals(0, quantity(BOOTS));
+    }
+
+    @Test
+    void counterAheadOfTheDatabaseFailsTheCommitAndReloads() {
+        order(line(SHIRT, 1));
+        // Another instance sells the rest
+        jdbcTemplate.update("UPDATE inventory SET quantity = 0 WHERE product_id = ?", SHIRT.getId());
+
+        assertThrows(OutOfStockException.class, () -> order(line(SHIRT, 2)));
+        assertEquals(0, quantity(SHIRT), "the conditional UPDATE never goes below zero");
+        assertThrows(OutOfStockException.class, () -> order(line(SHIRT, 1)));
+    }
+
+    @Test
+    void productWithoutInventoryRowsIsSoldByItsStockFlag() {
+        Product scarf = product(3L, "Scarf");
+        order(line(scarf, 1_000));
+
+        scarf.setInStock(false);
+        assertThrows(OutOfStockException.class, () -> order(line(scarf, 1)));
+    }
+
+    @Test
+    void concurrentClaimsNeverOversell() throws Exception {
+        jdbcTemplate.update("UPDATE inventory SET quantity = 100 WHERE product_id = ?", SHIRT.getId());
+        AtomicInteger sold = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(pool.submit(() -> {
+                try {
+                    order(line(SHIRT, 1));
+                    sold.incrementAndGet();
+                } catch (OutOfStockException e) {
+                    // Sold out
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        assertEquals(100, sold.get());
+        assertEquals(0, quantity(SHIRT));
+    }
+
+    @Test
+    void refreshDropsIdleProductsFromTheLookup() {
+        inventoryService = service(0);
+        order(line(SHIRT, 1), line(BOOTS, 1));
+        lookups.clear();
+
+        inventoryService.refresh();
+        assertTrue(lookups.isEmpty(), "idle products are evicted instead of re-read");
+
+        // A claim still pending keeps its counter
+        transaction.executeWithoutResult(status -> {
+            inventoryService.reserve(List.of(line(SHIRT, 1)));
+            assertEquals(List.of(List.of(1L)), new ArrayList<>(lookups));
+            inventoryService.refresh();
+            assertEquals(List.of(1L), new ArrayList<>(lookups.get(lookups.size() - 1)));
+        });
+        assertEquals(3, quantity(SHIRT));
+    }
+
+    private InventoryService service(long idleEvictMs) {
+        // Records the ids of each lookup and then runs it against H2
+        InventoryRepository recording = (InventoryRepository) Proxy.newProxyInstance(
+                InventoryRepository.class.getClassLoader(), new Class<?>[]{InventoryRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findByProductIdIn")) {
+                        @SuppressWarnings("unchecked")
+                        Collection<Long> productIds = (Collection<Long>) args[0];
+                        lookups.add(List.copyOf(productIds));
+                    }
+                    return method.invoke(inventoryRepository, args);
+                });
+        return new InventoryService(recording, jdbcTemplate, idleEvictMs);
+    }
+
+    // Reserves the lines in a transaction of their own and commits it
+    private void order(CartItem... items) {
+        transaction.executeWithoutResult(status -> inventoryService.reserve(List.of(items)));
+    }
+
+    private int quantity(Product product) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM inventory WHERE product_id = ?",
+                Integer.class, product.getId());
+    }
+
+    private static CartItem line(Product product, int quantity) {
+        return CartItem.builder().product(product).quantity(quantity).build();
+    }
+
+    private static Product product(Long id, String name) {
+        return Product.builder().id(id).name(name).inStock(true).build();
+    }
+
+    private static InventoryItem row(Product product, int quantity) {
+        return InventoryItem.builder().productId(product.getId()).quantity(quantity).build();
+    }
+}
@@ -1,6 +1,6 @@
 "use client"
 
-import { useState, FormEvent } from "react"
+import { useState, useRef, FormEvent } from "react"
 import type { CartItem } from "@/lib/types"
 import Image from "next/image"
 import Link from "next/link"
@@ -33,7 +33,7 @@ import { Input } from "@/components/ui/input"
 import { useCart } from "@/lib/cart-context"
 import { useAuth } from "@/lib/auth-context"
 import { placeOrder, ShippingAddress } from "@/lib/api"
-import { formatPrice } from "@/lib/utils"
+import { formatPrice, newIdempotencyKey } from "@/lib/utils"
 
 type CheckoutStep = "cart" | "address" | "success"
 
@@ -54,6 +54,9 @@ export default function CartPage() {
     const [orderResult, setOrderResult] = useState<OrderResult | null>(null)
     const [orderedItems, setOrderedItems] = useState<CartItem[]>([])
     const [orderError, setOrderError] = useState("")
+    // One key per checkout attempt: double submits and retries after an error can't duplicate the order.
+    // Created on first use rather than passed to useRef, which would mint a new one every render.
+    const orderKeyRef = useRef<string | null>(null)
 
     // Address form state
     const [address, setAddress] = useState<ShippingAddress>({
@@ -108,7 +111,9 @@ export default function CartPage() {
         setOrderError("")
 
         try {
-            const result = await placeOrder(address)
+            orderKeyRef.current ??= newIdempotencyKey()
+            const result = await placeOrder(address, orderKeyRef.current)
+            orderKeyRef.current = null
             setOrderResult(result)
             setOrderedItems([...cartItems])
             clearCart()
@@ -26,6 +26,17 @@ export async function fetchProductById(id: number): Promise<Product | null> {
     return res.json()
 }
 
+export async function fetchProductsByIds(ids: number[]): Promise<Product[]> {
+    if (ids.length === 0) return []
+    const res = await fetch(`${API_BASE}/products/batch`, {
+        method: "POST",
+        headers: { "Content-Type": "application/json" },
+        body: JSON.stringify({ ids }),
+    })
+    if (!res.ok) throw new Error("Failed to fetch products")
+    return res.json()
+}
+
 export async function searchProducts(query: string): Promise<Product[]> {
     const res = await fetch(`${API_BASE}/products/search?q=${encodeURIComponent(query)}`)
     if (!res.ok) throw new Error("Failed to search products")
@@ -70,10 +81,12 @@ export async function visualSearch(imageFile: File): Promise<SearchResult[]> {
 
     const data = await res.json()
 
-    // AI service returns [{productId, similarity}] — fetch full product details
+    // AI service returns [{productId, similarity}] — fetch full product details in one request
+    const products = await fetchProductsByIds(data.results.map((match: any) => match.productId))
+    const byId = new Map(products.map((product) => [product.id, product]))
     const results: SearchResult[] = []
     for (const match of data.results) {
-        const product = await fetchProductById(match.productId)
+        const product = byId.get(match.productId)
         if (product) {
             results.push({ product, similarity: match.similarity })
         }
@@ -180,6 +193,25 @@ export async function addToCart(
     return res.json()
 }
 
+export interface CartBulkChanges {
+    upserts?: { productId: number; quantity: number; selectedColor?: string; selectedSize?: string }[]
+    deletes?: number[]
+    merge?: boolean
+}
+
+// Applies many cart changes in one request and returns the full updated cart.
+// All or nothing: on a 503 no change was kept, so the same call can be retried.
+export async function applyCartChanges(changes: CartBulkChanges): Promise<CartItemData[]> {
+    const res = await fetch(`${API_BASE}/cart/bulk`, {
+        method: "POST",
+        headers: authHeaders(),
+        body: JSON.stringify(changes),
+    })
+    const data = await res.json()
+    if (!res.ok) throw new Error(data.error || "Failed to update cart")
+    return data
+}
+
 export async function updateCartItem(productId: number, quantity: number): Promise<void> {
     await fetch(`${API_BASE}/cart/${productId}`, {
         method: "PUT",
@@ -213,10 +245,14 @@ export interface ShippingAddress {
     zip: string
 }
 
-export async function placeOrder(address?: ShippingAddress): Promise<{ orderId: number; total: number }> {
+// Reuse the same idempotencyKey when retrying one checkout, so it is placed at most once
+export async function placeOrder(address?: ShippingAddress, idempotencyKey?: string): Promise<{ orderId: number; total: number }> {
     const res = await fetch(`${API_BASE}/orders`, {
         method: "POST",
-        headers: authHeaders(),
+        headers: {
+            ...authHeaders(),
+            ...(idempotencyKey ? { "Idempotency-Key": idempotencyKey } : {}),
+        },
         body: JSON.stringify(address ? { address } : {}),
     })
     const data = await res.json()
@@ -224,8 +260,25 @@ export async function placeOrder(address?: ShippingAddress): Promise<{ orderId:
     return data
 }
 
-export async function getOrderHistory(): Promise<any[]> {
-    const res = await fetch(`${API_BASE}/orders`, { headers: authHeaders() })
+export interface OrderSummary {
+    id: number
+    createdAt: string
+    status: string
+    total: number
+    itemCount: number
+}
+
+// One page of order summaries, newest first; pass nextCursor back for older orders
+export async function getOrderPage(cursor?: string, limit = 20): Promise<{ items: OrderSummary[]; nextCursor: string | null }> {
+    const params = new URLSearchParams({ limit: String(limit) })
+    if (cursor) params.set("cursor", cursor)
+    const res = await fetch(`${API_BASE}/orders/page?${params}`, { headers: authHeaders() })
     if (!res.ok) throw new Error("Failed to fetch orders")
     return res.json()
 }
+
+export async function getOrder(id: number): Promise<any> {
+    const res = await fetch(`${API_BASE}/orders/${id}`, { headers: authHeaders() })
+    if (!res.ok) throw new Error("Failed to fetch order")
+    return res.json()
+}
@@ -15,6 +15,7 @@ import {
     updateCartItem as apiUpdateCartItem,
     removeCartItem as apiRemoveCartItem,
     clearCart as apiClearCart,
+    applyCartChanges,
     CartItemData,
 } from "./api"
 import { useAuth } from "./auth-context"
@@ -63,12 +64,10 @@ export function CartProvider({ children }: { children: ReactNode }) {
                                 (i) => i.product.id === productId
                             )
                             if (!alreadyInCart) {
-                                apiAddToCart(productId, quantity).then(() => {
-                                    // Reload cart from server to get full product data
-                                    getCart().then((updated) =>
-                                        setCartItems(updated.map(backendToLocal))
-                                    )
-                                })
+                                // One call that also returns the full cart with product data
+                                applyCartChanges({ upserts: [{ productId, quantity }], merge: true })
+                                    .then((updated) => setCartItems(updated.map(backendToLocal)))
+                                    .catch(console.error)
                             }
                         } catch {
                             /* ignore malformed data */
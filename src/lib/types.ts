@@ -27,6 +27,9 @@ export interface Category {
     name: string;
     image: string;
     count: number;
+    inStockCount?: number | null;
+    minPrice?: number | null;
+    maxPrice?: number | null;
 }
 
 export interface SearchResult {